@@ -1,22 +1,30 @@
 package fr.kazotaruumc72.elbram;
 
+import fr.kazotaruumc72.elbram.api.BonusService;
 import fr.kazotaruumc72.elbram.commands.ApprendreCommand;
 import fr.kazotaruumc72.elbram.commands.ElbramCommand;
 import fr.kazotaruumc72.elbram.commands.ProfilCommand;
 import fr.kazotaruumc72.elbram.listeners.ChestBonusListener;
 import fr.kazotaruumc72.elbram.listeners.GUIListener;
 import fr.kazotaruumc72.elbram.listeners.ItemListener;
+import fr.kazotaruumc72.elbram.listeners.PlayerConnectionListener;
 import fr.kazotaruumc72.elbram.managers.BonusManager;
 import fr.kazotaruumc72.elbram.managers.KnowledgeManager;
+import fr.kazotaruumc72.elbram.managers.LootManager;
 import fr.kazotaruumc72.elbram.managers.MenuManager;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+
 public class Elbram extends JavaPlugin {
 
     private static Elbram instance;
     private KnowledgeManager knowledgeManager;
     private MenuManager menuManager;
     private BonusManager bonusManager;
+    private LootManager lootManager;
 
     @Override
     public void onEnable() {
@@ -27,6 +35,8 @@ public class Elbram extends JavaPlugin {
         menuManager = new MenuManager(this);
         bonusManager = new BonusManager(this);
         bonusManager.init();
+        getServer().getServicesManager().register(BonusService.class, bonusManager, this, ServicePriority.Normal);
+        lootManager = new LootManager(this);
 
         ElbramCommand elbramCommand = new ElbramCommand(this);
         getCommand("elbram").setExecutor(elbramCommand);
@@ -40,18 +50,33 @@ public class Elbram extends JavaPlugin {
         getServer().getPluginManager().registerEvents(new GUIListener(this), this);
         getServer().getPluginManager().registerEvents(new ItemListener(this), this);
         getServer().getPluginManager().registerEvents(new ChestBonusListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerConnectionListener(this), this);
+
+        // Joueurs déjà connectés (rechargement à chaud du plugin)
+        for (Player player : getServer().getOnlinePlayers()) {
+            knowledgeManager.onJoin(player.getUniqueId());
+        }
 
         getLogger().info("Elbram activé !");
     }
 
     @Override
     public void onDisable() {
+        getServer().getServicesManager().unregisterAll(this);
+        if (menuManager != null) {
+            menuManager.close();
+        }
         if (knowledgeManager != null) {
-            knowledgeManager.saveAll();
+            knowledgeManager.close();
         }
         getLogger().info("Elbram désactivé !");
     }
 
+    /** Fichier JAR du plugin (lecture des ressources par défaut). */
+    public File getPluginFile() {
+        return getFile();
+    }
+
     public static Elbram getInstance() {
         return instance;
     }
@@ -67,4 +92,8 @@ public class Elbram extends JavaPlugin {
     public BonusManager getBonusManager() {
         return bonusManager;
     }
+
+    public LootManager getLootManager() {
+        return lootManager;
+    }
 }
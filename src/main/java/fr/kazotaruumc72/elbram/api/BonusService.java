@@ -0,0 +1,38 @@
+package fr.kazotaruumc72.elbram.api;
+
+import fr.kazotaruumc72.elbram.model.BonusType;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Accès aux bonus des joueurs pour les autres plugins (Quantum, tours, effets de zone…).
+ *
+ * Publié dans le {@link org.bukkit.plugin.ServicesManager} de Bukkit :
+ * <pre>
+ * BonusService bonuses = Bukkit.getServicesManager().load(BonusService.class);
+ * BonusType chestLoot = bonuses.bonusType("chest_loot");   // une fois
+ * bonuses.getBonusTiers(playersInRegion, chestLoot, tiers); // à chaque tick
+ * </pre>
+ * Utilisable depuis n'importe quel thread.
+ */
+public interface BonusService {
+
+    /**
+     * Résout un identifiant de bonus en type interné, à conserver par l'appelant.
+     *
+     * @throws IllegalArgumentException si l'identifiant est mal formé
+     */
+    BonusType bonusType(String bonusId);
+
+    /** Rang du bonus pour un joueur (0 s'il ne l'a pas). */
+    int getBonusTier(UUID playerId, BonusType type);
+
+    /**
+     * Rangs du bonus pour plusieurs joueurs : {@code tiers[i]} reçoit le rang du
+     * i-ème joueur dans l'ordre d'itération de {@code playerIds}.
+     *
+     * @throws IllegalArgumentException si {@code tiers} est plus court que {@code playerIds}
+     */
+    void getBonusTiers(Collection<UUID> playerIds, BonusType type, int[] tiers);
+}
@@ -0,0 +1,329 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuConfig;
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuItem;
+import fr.kazotaruumc72.elbram.model.Rarity;
+import org.bukkit.Material;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Instantané binaire des menus compilés ({@code menus.cache}), pour les démarrages
+ * à catalogue inchangé.
+ *
+ * L'instantané est associé à une {@link #key(File, List, String) clé} : l'empreinte
+ * SHA-256 du contenu de tous les fichiers de menus, de leurs noms et de l'environnement
+ * de compilation (version du plugin et du serveur, qui influent sur la résolution des
+ * matériaux). Tant que la clé correspond, les menus sont relus depuis l'instantané
+ * projeté en mémoire, sans parsing YAML ni colorisation des textes, avec les
+ * fermetures de perte en cascade du registre : ni recherche de cycle ni calcul de
+ * point fixe au démarrage. Le reste des index (définitions, dépendants directs,
+ * expressions de prérequis) et les tables de bonus sont reconstruits en un seul
+ * passage linéaire sur les menus.
+ *
+ * Les textes sont stockés une seule fois dans une table partagée : les noms et lores
+ * relus restent internés comme au chargement YAML.
+ *
+ * Format : en-tête {@code "ELBC"}, version, clé ; table des textes ; table des lores ;
+ * menus ; fermetures (identifiant, puis identifiants perdus avec lui) ; CRC32 de
+ * tout ce qui précède. Un fichier illisible ou d'une autre clé est
+ * simplement ignoré.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x454C4243; // "ELBC"
+    private static final byte FORMAT_VERSION = 2;
+    private static final int KEY_SIZE = 32;
+
+    private static final byte CATEGORY_ITEM = 0;
+    private static final byte KNOWLEDGE_ITEM = 1;
+
+    private final Path file;
+    private final Path temp;
+
+    public CatalogSnapshot(File file) {
+        this.file = file.toPath();
+        this.temp = file.toPath().resolveSibling(file.getName() + ".tmp");
+    }
+
+    /**
+     * Calcule la clé d'un ensemble de fichiers de menus.
+     *
+     * @param menusDir    dossier {@code menus/}
+     * @param menuNames   menus découverts (chemins relatifs sans extension), dans l'ordre de chargement
+     * @param environment versions qui influent sur la compilation
+     */
+    public static byte[] key(File menusDir, List<String> menuNames, String environment) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        digest.update(FORMAT_VERSION);
+        update(digest, environment.getBytes(StandardCharsets.UTF_8));
+        for (String menuName : menuNames) {
+            update(digest, menuName.getBytes(StandardCharsets.UTF_8));
+            update(digest, Files.readAllBytes(new File(menusDir, menuName + ".yml").toPath()));
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, byte[] bytes) {
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lecture
+    // -------------------------------------------------------------------------
+
+    /**
+     * Contenu relu d'un instantané.
+     *
+     * @param menus    menus indexés par nom, dans l'ordre de chargement
+     * @param cascades fermetures de perte en cascade par identifiant d'Information
+     */
+    public record Contents(Map<String, MenuConfig> menus, Map<String, List<String>> cascades) {}
+
+    /**
+     * Relit le catalogue compilé si l'instantané existe et correspond à {@code key}.
+     *
+     * @return contenu relu, ou {@code null} (instantané absent, périmé ou corrompu)
+     */
+    public Contents load(byte[] key) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int end = buffer.limit() - 8;
+        if (end < 4 + 1 + KEY_SIZE || buffer.getInt() != MAGIC || buffer.get() != FORMAT_VERSION) {
+            return null;
+        }
+        byte[] stored = new byte[KEY_SIZE];
+        buffer.get(stored);
+        if (!Arrays.equals(stored, key)) return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if (buffer.getLong(end) != crc.getValue()) return null;
+
+        try {
+            return read(buffer.limit(end));
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    private static Contents read(ByteBuffer in) {
+        String[] strings = new String[in.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        List<List<String>> lores = new ArrayList<>();
+        int loreCount = in.getInt();
+        for (int i = 0; i < loreCount; i++) {
+            String[] lines = new String[in.getInt()];
+            for (int j = 0; j < lines.length; j++) lines[j] = strings[in.getInt()];
+            lores.add(List.of(lines));
+        }
+
+        Map<String, MenuConfig> menus = new LinkedHashMap<>();
+        int menuCount = in.getInt();
+        for (int m = 0; m < menuCount; m++) {
+            String menuName = string(in, strings);
+            String title = string(in, strings);
+            List<MenuItem> items = new ArrayList<>();
+            int itemCount = in.getInt();
+            for (int i = 0; i < itemCount; i++) {
+                byte kind = in.get();
+                long slotMask = in.getLong();
+                if (kind == KNOWLEDGE_ITEM) {
+                    String knowledgeId = string(in, strings);
+                    String nameUnlearned = string(in, strings);
+                    String nameLearned = string(in, strings);
+                    List<String> loreUnlearned = lores.get(in.getInt());
+                    List<String> loreLearned = lores.get(in.getInt());
+                    Material matUnlearned = material(string(in, strings));
+                    Material matLearned = material(string(in, strings));
+                    int cmdUnlearned = in.getInt();
+                    int cmdLearned = in.getInt();
+                    String skillRequired = string(in, strings);
+                    List<String> bonuses = lores.get(in.getInt());
+                    Rarity rarity = Rarity.values()[in.get()];
+                    items.add(new MenuItem(slotMask, knowledgeId,
+                            nameUnlearned, nameLearned,
+                            loreUnlearned, loreLearned,
+                            matUnlearned, matLearned,
+                            cmdUnlearned, cmdLearned,
+                            skillRequired, bonuses, rarity));
+                } else {
+                    Material material = material(string(in, strings));
+                    String name = string(in, strings);
+                    List<String> lore = lores.get(in.getInt());
+                    String action = string(in, strings);
+                    String submenu = string(in, strings);
+                    String permission = string(in, strings);
+                    int customModelData = in.getInt();
+                    items.add(new MenuItem(slotMask, material, name, lore, action, submenu, permission, customModelData));
+                }
+            }
+            menus.put(menuName, new MenuConfig(title, items));
+        }
+
+        Map<String, List<String>> cascades = new HashMap<>();
+        int cascadeCount = in.getInt();
+        for (int c = 0; c < cascadeCount; c++) {
+            String knowledgeId = string(in, strings);
+            String[] lost = new String[in.getInt()];
+            for (int i = 0; i < lost.length; i++) lost[i] = string(in, strings);
+            cascades.put(knowledgeId, List.of(lost));
+        }
+        return new Contents(menus, cascades);
+    }
+
+    private static String string(ByteBuffer in, String[] strings) {
+        int index = in.getInt();
+        return index < 0 ? null : strings[index];
+    }
+
+    private static Material material(String name) {
+        Material material = Material.matchMaterial(name);
+        return material != null ? material : Material.PAPER;
+    }
+
+    // -------------------------------------------------------------------------
+    // Écriture
+    // -------------------------------------------------------------------------
+
+    /** Remplace l'instantané par le catalogue donné (fichier temporaire puis déplacement atomique). */
+    public void save(byte[] key, MenuCatalog catalog) throws IOException {
+        Tables tables = new Tables();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeInt(catalog.getMenuNames().size());
+        for (String menuName : catalog.getMenuNames()) {
+            MenuConfig config = catalog.getMenu(menuName);
+            out.writeInt(tables.string(menuName));
+            out.writeInt(tables.string(config.getTitle()));
+            out.writeInt(config.getItems().size());
+            for (MenuItem item : config.getItems()) {
+                if (item.isKnowledgeItem()) {
+                    out.writeByte(KNOWLEDGE_ITEM);
+                    out.writeLong(item.getSlotMask());
+                    out.writeInt(tables.string(item.getKnowledgeId()));
+                    out.writeInt(tables.string(item.getNameUnlearned()));
+                    out.writeInt(tables.string(item.getNameLearned()));
+                    out.writeInt(tables.lore(item.getLoreUnlearned()));
+                    out.writeInt(tables.lore(item.getLoreLearned()));
+                    out.writeInt(tables.string(item.getMaterialUnlearned().name()));
+                    out.writeInt(tables.string(item.getMaterialLearned().name()));
+                    out.writeInt(item.getCustomModelDataUnlearned());
+                    out.writeInt(item.getCustomModelDataLearned());
+                    out.writeInt(tables.string(item.getSkillRequired()));
+                    out.writeInt(tables.lore(item.getBonuses()));
+                    out.writeByte(item.getRarity().ordinal());
+                } else {
+                    out.writeByte(CATEGORY_ITEM);
+                    out.writeLong(item.getSlotMask());
+                    out.writeInt(tables.string(item.getMaterial().name()));
+                    out.writeInt(tables.string(item.getName()));
+                    out.writeInt(tables.lore(item.getLore()));
+                    out.writeInt(tables.string(item.getAction()));
+                    out.writeInt(tables.string(item.getSubmenu()));
+                    out.writeInt(tables.string(item.getPermission()));
+                    out.writeInt(item.getCustomModelData());
+                }
+            }
+        }
+
+        KnowledgeRegistry registry = catalog.getKnowledge();
+        out.writeInt(registry.size());
+        for (KnowledgeDefinition def : registry.getAll()) {
+            List<String> lost = registry.getCascadeIds(def);
+            out.writeInt(tables.string(def.id()));
+            out.writeInt(lost.size());
+            for (String id : lost) out.writeInt(tables.string(id));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 1024);
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.write(key);
+        tables.writeTo(header);
+        body.writeTo(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        header.writeLong(crc.getValue());
+
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Tables des textes et des lores d'un instantané en cours d'écriture. */
+    private static final class Tables {
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<List<String>, Integer> loreIndices = new HashMap<>();
+        private final List<List<String>> lores = new ArrayList<>();
+
+        /** Indice du texte, ou {@code -1} pour {@code null}. */
+        int string(String value) {
+            if (value == null) return -1;
+            return stringIndices.computeIfAbsent(value, v -> {
+                strings.add(v);
+                return strings.size() - 1;
+            });
+        }
+
+        int lore(List<String> lines) {
+            List<String> key = lines != null ? lines : List.of();
+            Integer index = loreIndices.get(key);
+            if (index != null) return index;
+            for (String line : key) string(line);
+            lores.add(key);
+            loreIndices.put(key, lores.size() - 1);
+            return lores.size() - 1;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(lores.size());
+            for (List<String> lines : lores) {
+                out.writeInt(lines.size());
+                for (String line : lines) out.writeInt(stringIndices.get(line));
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.model.Rarity;
+
+import java.util.List;
+
+/**
+ * Définition compilée d'une Information, telle que déclarée dans un menu.
+ *
+ * @param index         indice interné ({@link KnowledgeIds})
+ * @param id            identifiant unique ({@code knowledge_id})
+ * @param rarity        rareté de l'Information
+ * @param displayName   nom lisible (nom "appris" sans codes couleur)
+ * @param prerequisite  expression de prérequis telle que déclarée ({@code skill_required}), ou {@code null}
+ * @param requirement   expression compilée ({@link Prerequisite#NONE} sans prérequis)
+ * @param bonuses       bonus déclarés (ex. ["chest_loot:1"])
+ * @param menuName      menu qui déclare l'Information (ex. "informations/exploration")
+ */
+public record KnowledgeDefinition(int index, String id, Rarity rarity, String displayName,
+                                  String prerequisite, Prerequisite requirement,
+                                  List<String> bonuses, String menuName) {
+
+    public KnowledgeDefinition {
+        bonuses = List.copyOf(bonuses);
+    }
+
+    /** {@code true} si l'Information déclare un prérequis. */
+    public boolean hasPrerequisite() {
+        return !requirement.isNone();
+    }
+}
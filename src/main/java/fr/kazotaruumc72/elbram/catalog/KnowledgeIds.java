@@ -0,0 +1,209 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Table d'internement des identifiants d'Informations en entiers denses.
+ *
+ * Les indices sont attribués à la première rencontre d'un identifiant et ne
+ * changent plus, y compris après un rechargement des menus : l'état des joueurs,
+ * exprimé en {@link fr.kazotaruumc72.elbram.model.KnowledgeBits}, reste donc valide
+ * d'un catalogue à l'autre. Les identifiants absents du catalogue (lus dans un
+ * fichier joueur) sont internés de la même façon.
+ *
+ * Une table ouverte avec {@link #open(File)} est persistée en ajout seul : chaque
+ * nouvel identifiant est écrit à la fin du dictionnaire, si bien que les indices
+ * restent stables d'un démarrage à l'autre. Les fichiers joueurs référencent ces
+ * indices ; la {@link #generation() génération}, tirée à la création du
+ * dictionnaire (écrit à côté puis renommé), les lie à ce dictionnaire précis.
+ *
+ * Un ajout n'est pas synchronisé sur le disque à chaque internement (thread
+ * principal) : {@link #sync()} le fait avant l'écriture des fichiers joueurs, et
+ * {@link #durableSize()} indique les indices qu'un arrêt brutal ne peut plus faire perdre.
+ *
+ * Lectures sans verrou, internement synchronisé ; utilisable depuis n'importe quel thread.
+ */
+public final class KnowledgeIds {
+
+    private static final int MAGIC = 0x454C4244; // "ELBD"
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 8;
+
+    private final ConcurrentHashMap<String, Integer> indices = new ConcurrentHashMap<>();
+    private final long generation;
+    /** {@code true} pour une table ouverte depuis un fichier. */
+    private final boolean persistent;
+    private volatile String[] ids = new String[64];
+    private volatile int size;
+    /** Nombre d'identifiants synchronisés sur le disque (indices {@code 0 .. durableSize-1}). */
+    private volatile int durableSize;
+    /** Fichier et flux d'ajout du dictionnaire, ou {@code null} pour une table purement en mémoire. */
+    private FileOutputStream file;
+    private DataOutputStream appender;
+
+    /** Crée une table en mémoire, non persistée. */
+    public KnowledgeIds() {
+        this.generation = 0L;
+        this.persistent = false;
+    }
+
+    private KnowledgeIds(long generation) {
+        this.generation = generation;
+        this.persistent = true;
+    }
+
+    /**
+     * Ouvre (ou crée) le dictionnaire persistant {@code file}.
+     * Une entrée de fin tronquée (arrêt brutal pendant un ajout) est ignorée et retirée du fichier.
+     */
+    public static KnowledgeIds open(File file) throws IOException {
+        if (!file.exists()) {
+            // Créé à côté puis renommé : le dictionnaire n'existe que complet et synchronisé
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            long generation = ThreadLocalRandom.current().nextLong();
+            try (FileOutputStream stream = new FileOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(generation);
+                out.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        byte[] content = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        if (content.length < HEADER_SIZE || in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+            throw new IOException("Dictionnaire d'identifiants invalide : " + file);
+        }
+        KnowledgeIds table = new KnowledgeIds(in.readLong());
+
+        int validLength = HEADER_SIZE;
+        try {
+            while (validLength < content.length) {
+                table.add(in.readUTF());
+                validLength = content.length - in.available();
+            }
+        } catch (EOFException truncated) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+
+        table.file = new FileOutputStream(file, true);
+        table.appender = new DataOutputStream(table.file);
+        // Le contenu relu devient durable même s'il n'avait pas été synchronisé avant l'arrêt
+        table.file.getFD().sync();
+        table.durableSize = table.size;
+        return table;
+    }
+
+    /** Retourne l'indice de l'identifiant, en l'attribuant (et en le persistant) s'il est nouveau. */
+    public int intern(String knowledgeId) {
+        Integer index = indices.get(knowledgeId);
+        if (index != null) return index;
+        synchronized (this) {
+            index = indices.get(knowledgeId);
+            if (index != null) return index;
+            if (appender != null) {
+                try {
+                    appender.writeUTF(knowledgeId);
+                    appender.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Impossible d'enregistrer l'identifiant " + knowledgeId, e);
+                }
+            }
+            return add(knowledgeId);
+        }
+    }
+
+    /** Ajoute un identifiant en mémoire. Appelé sous le moniteur de la table (ou avant sa publication). */
+    private int add(String knowledgeId) {
+        int next = size;
+        String[] table = ids;
+        if (next == table.length) {
+            table = Arrays.copyOf(table, next * 2);
+        }
+        table[next] = knowledgeId;
+        ids = table;
+        size = next + 1;
+        indices.put(knowledgeId, next);
+        return next;
+    }
+
+    /** Retourne l'indice de l'identifiant, ou {@code -1} s'il n'a jamais été interné. */
+    public int indexOf(String knowledgeId) {
+        Integer index = indices.get(knowledgeId);
+        return index != null ? index : -1;
+    }
+
+    /** Retourne l'identifiant d'indice {@code index}. */
+    public String get(int index) {
+        return ids[index];
+    }
+
+    /** Nombre d'identifiants internés (les indices valides sont {@code 0 .. size-1}). */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Nombre d'identifiants dont l'ajout est sur le disque : seuls les indices
+     * inférieurs peuvent être écrits tels quels dans un fichier joueur.
+     * Une table en mémoire n'a rien à synchroniser.
+     */
+    public int durableSize() {
+        return persistent ? durableSize : size;
+    }
+
+    /**
+     * Synchronise sur le disque les identifiants ajoutés depuis le dernier appel.
+     * Appelé hors du thread principal, avant l'écriture de fichiers joueurs ;
+     * sans effet si rien n'a été ajouté.
+     */
+    public void sync() throws IOException {
+        FileOutputStream target;
+        int synced;
+        synchronized (this) {
+            if (appender == null || durableSize == size) return;
+            appender.flush();
+            target = file;
+            synced = size;
+        }
+        // Synchronisation hors du moniteur : les internements du thread principal ne l'attendent pas
+        target.getFD().sync();
+        synchronized (this) {
+            if (synced > durableSize) durableSize = synced;
+        }
+    }
+
+    /** Génération du dictionnaire persistant ({@code 0} pour une table en mémoire). */
+    public long generation() {
+        return generation;
+    }
+
+    /** Ferme le flux d'ajout du dictionnaire après l'avoir synchronisé sur le disque. */
+    public synchronized void close() throws IOException {
+        if (appender != null) {
+            appender.flush();
+            file.getFD().sync();
+            durableSize = size;
+            appender.close();
+            appender = null;
+            file = null;
+        }
+    }
+}
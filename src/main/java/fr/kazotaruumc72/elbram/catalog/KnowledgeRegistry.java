@@ -0,0 +1,297 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuConfig;
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuItem;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index global des Informations par {@code knowledge_id}.
+ *
+ * Construit en même temps que le {@link MenuCatalog} : toutes les requêtes
+ * par identifiant (rareté, nom, prérequis, dépendants) sont des accès hash.
+ * Si un identifiant est déclaré dans plusieurs menus, la première déclaration
+ * (ordre d'enregistrement des menus) fait foi.
+ *
+ * Chaque Information est indexée par son indice interné ({@link KnowledgeIds}).
+ * Les expressions {@code skill_required} sont compilées en {@link Prerequisite} ;
+ * chaque Information mentionnée par une expression en est un prérequis, ce qui
+ * forme un graphe orienté acyclique : un cycle fait échouer la construction.
+ * Chaque Information porte sa fermeture de perte en cascade (elle comprise), utilisée
+ * par l'obsolescence en cascade : les dépendants dont le prérequis devient
+ * impossible à satisfaire sans elle (voir {@link #cascadeOf}). Cette fermeture
+ * précalculée suppose tout le reste du catalogue accessible ; pour un joueur qui a
+ * déjà des Informations bloquées, {@link #getCascade(int, KnowledgeBits)} la
+ * recalcule en les écartant.
+ */
+public final class KnowledgeRegistry {
+
+    private static final int[] NO_DEPENDENTS = new int[0];
+
+    private final Map<String, KnowledgeDefinition> definitions;
+    /** indice interné → définition ({@code null} pour un identifiant hors catalogue) */
+    private final KnowledgeDefinition[] byIndex;
+    private final KnowledgeIds ids;
+    /** prérequis → Informations dont l'expression {@code skill_required} le mentionne */
+    private final Map<String, List<String>> dependents;
+    /** indice interné → indices des dépendants directs (graphe compilé de {@link #dependents}) */
+    private final int[][] dependentIndices;
+    /** indice interné → fermeture de perte en cascade (l'Information et les dépendants qu'elle rend inaccessibles) */
+    private final KnowledgeBits[] cascades;
+    /** Toutes les Informations du catalogue ({@code 0 .. byIndex.length-1}). */
+    private final KnowledgeBits universe;
+
+    /**
+     * @param cascades fermetures de perte en cascade par identifiant, relues d'un
+     *                 {@link CatalogSnapshot} écrit pour ces mêmes menus, ou {@code null}
+     *                 pour les calculer (avec la recherche de cycle)
+     * @throws IllegalStateException si un prérequis est invalide ou si les prérequis forment un cycle
+     */
+    KnowledgeRegistry(Map<String, MenuConfig> menus, KnowledgeIds ids, Map<String, List<String>> cascades) {
+        Map<String, KnowledgeDefinition> defs = new LinkedHashMap<>();
+        for (Map.Entry<String, MenuConfig> entry : menus.entrySet()) {
+            for (MenuItem item : entry.getValue().getItems()) {
+                if (!item.isKnowledgeItem() || defs.containsKey(item.getKnowledgeId())) continue;
+                Prerequisite requirement;
+                try {
+                    requirement = Prerequisite.compile(item.getSkillRequired(), ids::intern);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException(item.getKnowledgeId() + " : " + e.getMessage(), e);
+                }
+                defs.put(item.getKnowledgeId(), new KnowledgeDefinition(
+                        ids.intern(item.getKnowledgeId()),
+                        item.getKnowledgeId(),
+                        item.getRarity(),
+                        ChatColor.stripColor(item.getNameLearned()),
+                        item.getSkillRequired(),
+                        requirement,
+                        item.getBonuses(),
+                        entry.getKey()));
+            }
+        }
+
+        Map<String, List<String>> deps = new HashMap<>();
+        for (KnowledgeDefinition def : defs.values()) {
+            def.requirement().references().forEach(index ->
+                    deps.computeIfAbsent(ids.get(index), k -> new ArrayList<>()).add(def.id()));
+        }
+        deps.replaceAll((k, v) -> List.copyOf(v));
+
+        this.ids         = ids;
+        this.definitions = Collections.unmodifiableMap(defs);
+        this.byIndex     = new KnowledgeDefinition[ids.size()];
+        for (KnowledgeDefinition def : defs.values()) {
+            byIndex[def.index()] = def;
+        }
+        this.dependents  = Collections.unmodifiableMap(deps);
+        this.dependentIndices = new int[byIndex.length][];
+        for (Map.Entry<String, List<String>> entry : deps.entrySet()) {
+            dependentIndices[ids.indexOf(entry.getKey())] = entry.getValue().stream()
+                    .mapToInt(id -> defs.get(id).index())
+                    .toArray();
+        }
+        BitSet all = new BitSet();
+        all.set(0, byIndex.length);
+        this.universe    = KnowledgeBits.of(all);
+        this.cascades    = cascades != null ? restoreCascades(cascades) : computeCascades();
+    }
+
+    /**
+     * Vérifie que le graphe des prérequis est acyclique (algorithme de Kahn, feuilles
+     * d'abord : une Information est traitée quand tous ses dépendants le sont), puis
+     * calcule la fermeture de perte en cascade de chaque Information.
+     */
+    private KnowledgeBits[] computeCascades() {
+        int[] pending = new int[byIndex.length];
+        for (KnowledgeDefinition def : definitions.values()) {
+            for (KnowledgeDefinition parent : parentsOf(def)) pending[parent.index()]++;
+        }
+
+        Deque<KnowledgeDefinition> ready = new ArrayDeque<>();
+        for (KnowledgeDefinition def : definitions.values()) {
+            if (pending[def.index()] == 0) ready.add(def);
+        }
+
+        boolean[] processed = new boolean[byIndex.length];
+        int count = 0;
+        while (!ready.isEmpty()) {
+            KnowledgeDefinition def = ready.poll();
+            processed[def.index()] = true;
+            count++;
+            for (KnowledgeDefinition parent : parentsOf(def)) {
+                if (--pending[parent.index()] == 0) ready.add(parent);
+            }
+        }
+        if (count < definitions.size()) {
+            throw new IllegalStateException("Cycle de prérequis détecté : " + describeCycle(processed));
+        }
+
+        KnowledgeBits[] result = new KnowledgeBits[byIndex.length];
+        for (KnowledgeDefinition def : definitions.values()) {
+            result[def.index()] = cascadeOf(def.index(), universe);
+        }
+        return result;
+    }
+
+    /** Fermetures relues d'un instantané : le graphe a été validé quand il a été écrit. */
+    private KnowledgeBits[] restoreCascades(Map<String, List<String>> stored) {
+        KnowledgeBits[] result = new KnowledgeBits[byIndex.length];
+        for (KnowledgeDefinition def : definitions.values()) {
+            List<String> closure = stored.get(def.id());
+            if (closure == null) {
+                result[def.index()] = cascadeOf(def.index(), universe);
+                continue;
+            }
+            BitSet bits = new BitSet();
+            for (String id : closure) bits.set(ids.intern(id));
+            result[def.index()] = KnowledgeBits.of(bits);
+        }
+        return result;
+    }
+
+    /**
+     * Informations perdues avec {@code root} : celles dont le prérequis ne peut plus
+     * être satisfait, même en apprenant tout le reste de {@code available}, une fois
+     * {@code root} et les autres pertes écartées. Une Information qui ne fait que
+     * mentionner {@code root} (ex. {@code root | b}, {@code 2 of (root, b, c)}) n'est
+     * donc perdue que si ses autres alternatives le sont aussi. Seuls les dépendants
+     * d'une Information perdue sont réévalués.
+     */
+    private KnowledgeBits cascadeOf(int root, KnowledgeBits available) {
+        KnowledgeBits lost = KnowledgeBits.EMPTY.with(root);
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            for (int dependent : getDependentIndices(pending.poll())) {
+                if (lost.get(dependent)) continue;
+                if (!byIndex[dependent].requirement().test(available.andNot(lost))) {
+                    lost = lost.with(dependent);
+                    pending.add(dependent);
+                }
+            }
+        }
+        return lost;
+    }
+
+    /** Prérequis mentionnés par l'expression de l'Information et déclarés dans le catalogue. */
+    private List<KnowledgeDefinition> parentsOf(KnowledgeDefinition def) {
+        List<KnowledgeDefinition> parents = new ArrayList<>();
+        def.requirement().references().forEach(index -> {
+            KnowledgeDefinition parent = get(index);
+            if (parent != null) parents.add(parent);
+        });
+        return parents;
+    }
+
+    /**
+     * Décrit un cycle parmi les Informations restées non traitées (ex. "a → b → a",
+     * chaque Information suivie de son prérequis). Une Information non traitée a
+     * toujours un dépendant non traité : on les suit jusqu'à revisiter une Information.
+     */
+    private String describeCycle(boolean[] processed) {
+        KnowledgeDefinition current = null;
+        for (KnowledgeDefinition def : definitions.values()) {
+            if (!processed[def.index()]) { current = def; break; }
+        }
+        List<KnowledgeDefinition> path = new ArrayList<>();
+        Map<KnowledgeDefinition, Integer> positions = new HashMap<>();
+        while (!positions.containsKey(current)) {
+            positions.put(current, path.size());
+            path.add(current);
+            for (String dependentId : getDependents(current.id())) {
+                KnowledgeDefinition dependent = definitions.get(dependentId);
+                if (!processed[dependent.index()]) { current = dependent; break; }
+            }
+        }
+        List<KnowledgeDefinition> cycle = path.subList(positions.get(current), path.size());
+        StringBuilder description = new StringBuilder(cycle.get(0).id());
+        for (int i = cycle.size() - 1; i >= 0; i--) {
+            description.append(" → ").append(cycle.get(i).id());
+        }
+        return description.toString();
+    }
+
+    /** Retourne la définition d'une Information, ou {@code null} si inconnue. */
+    public KnowledgeDefinition get(String knowledgeId) {
+        return definitions.get(knowledgeId);
+    }
+
+    /** Retourne la définition d'indice interné {@code index}, ou {@code null} si hors catalogue. */
+    public KnowledgeDefinition get(int index) {
+        return index >= 0 && index < byIndex.length ? byIndex[index] : null;
+    }
+
+    /** {@code true} si l'identifiant est déclaré dans au moins un menu. */
+    public boolean contains(String knowledgeId) {
+        return definitions.containsKey(knowledgeId);
+    }
+
+    /** Identifiants dont le prérequis direct est {@code prerequisiteId}. */
+    public List<String> getDependents(String prerequisiteId) {
+        return dependents.getOrDefault(prerequisiteId, List.of());
+    }
+
+    /** Indices des Informations dont l'expression de prérequis mentionne l'Information d'indice {@code index}. */
+    public int[] getDependentIndices(int index) {
+        int[] result = index >= 0 && index < dependentIndices.length ? dependentIndices[index] : null;
+        return result != null ? result : NO_DEPENDENTS;
+    }
+
+    /**
+     * Fermeture de perte en cascade précalculée de l'Information d'indice {@code index} :
+     * elle-même et, transitivement, chaque dépendant dont le prérequis ne peut plus
+     * être satisfait sans elle. Pour une Information hors catalogue, la fermeture
+     * se réduit à elle-même.
+     */
+    public KnowledgeBits getCascade(int index) {
+        KnowledgeBits cascade = index < cascades.length ? cascades[index] : null;
+        return cascade != null ? cascade : KnowledgeBits.EMPTY.with(index);
+    }
+
+    /**
+     * Fermeture de perte en cascade pour un joueur dont les Informations
+     * {@code unavailable} sont déjà bloquées : une alternative bloquée ne sauve plus
+     * un dépendant (ex. transmettre {@code a} quand {@code b} est bloquée fait perdre
+     * {@code a | b}). Sans blocage, c'est la fermeture précalculée ; sinon elle est
+     * recalculée, en ne réévaluant que les dépendants des Informations perdues.
+     */
+    public KnowledgeBits getCascade(int index, KnowledgeBits unavailable) {
+        if (!unavailable.intersects(universe)) return getCascade(index);
+        return cascadeOf(index, universe.andNot(unavailable));
+    }
+
+    /** Identifiants de la fermeture précalculée d'une Information, pour un {@link CatalogSnapshot}. */
+    List<String> getCascadeIds(KnowledgeDefinition def) {
+        List<String> result = new ArrayList<>();
+        getCascade(def.index()).forEach(index -> result.add(ids.get(index)));
+        return result;
+    }
+
+    /** Forme lisible d'un prérequis, avec les noms affichés des Informations. */
+    public String describe(Prerequisite requirement) {
+        return requirement.describe(index -> {
+            KnowledgeDefinition def = get(index);
+            return def != null ? def.displayName() : ids.get(index);
+        });
+    }
+
+    /** Toutes les définitions, dans l'ordre de déclaration. */
+    public Collection<KnowledgeDefinition> getAll() {
+        return definitions.values();
+    }
+
+    public int size() {
+        return definitions.size();
+    }
+}
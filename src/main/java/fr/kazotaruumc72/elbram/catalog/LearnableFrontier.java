@@ -0,0 +1,86 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+
+import java.util.BitSet;
+
+/**
+ * Frontière d'apprentissage d'un joueur : les Informations du catalogue dont le
+ * prérequis est satisfait et qui ne sont ni apprises ni bloquées. Immuable.
+ *
+ * Construite une fois à partir de l'état complet ({@link #build}), puis avancée
+ * à chaque modification ({@link #advance}) : seules les Informations gagnées,
+ * perdues, bloquées ou débloquées et les dépendants directs des Informations
+ * gagnées ou perdues sont réévalués, soit un coût proportionnel à leur degré
+ * sortant et non à la taille du catalogue.
+ */
+public final class LearnableFrontier {
+
+    private final KnowledgeRegistry registry;
+    /** État à partir duquel la frontière a été calculée (comparé par identité). */
+    private final KnowledgeBits knowledge;
+    private final KnowledgeBits blocked;
+    private final KnowledgeBits learnable;
+
+    private LearnableFrontier(KnowledgeRegistry registry, KnowledgeBits knowledge, KnowledgeBits blocked,
+                              KnowledgeBits learnable) {
+        this.registry = registry;
+        this.knowledge = knowledge;
+        this.blocked = blocked;
+        this.learnable = learnable;
+    }
+
+    /** Calcule la frontière en évaluant toutes les Informations du catalogue. */
+    public static LearnableFrontier build(KnowledgeRegistry registry, KnowledgeBits knowledge, KnowledgeBits blocked) {
+        BitSet learnable = new BitSet();
+        for (KnowledgeDefinition def : registry.getAll()) {
+            if (isLearnable(def, knowledge, blocked)) learnable.set(def.index());
+        }
+        return new LearnableFrontier(registry, knowledge, blocked, KnowledgeBits.of(learnable));
+    }
+
+    /** Frontière du nouvel état, déduite de celle-ci par les seules Informations modifiées. */
+    public LearnableFrontier advance(KnowledgeBits newKnowledge, KnowledgeBits newBlocked) {
+        if (newKnowledge == knowledge && newBlocked == blocked) return this;
+
+        KnowledgeBits changedKnowledge = newKnowledge.andNot(knowledge).or(knowledge.andNot(newKnowledge));
+        KnowledgeBits changedBlocked = newBlocked.andNot(blocked).or(blocked.andNot(newBlocked));
+
+        BitSet candidates = new BitSet();
+        changedKnowledge.forEach(index -> {
+            candidates.set(index);
+            for (int dependent : registry.getDependentIndices(index)) candidates.set(dependent);
+        });
+        changedBlocked.forEach(candidates::set);
+
+        KnowledgeBits updated = learnable;
+        for (int index = candidates.nextSetBit(0); index >= 0; index = candidates.nextSetBit(index + 1)) {
+            KnowledgeDefinition def = registry.get(index);
+            if (def != null && isLearnable(def, newKnowledge, newBlocked)) {
+                updated = updated.with(index);
+            } else {
+                updated = updated.without(index);
+            }
+        }
+        return new LearnableFrontier(registry, newKnowledge, newBlocked, updated);
+    }
+
+    private static boolean isLearnable(KnowledgeDefinition def, KnowledgeBits knowledge, KnowledgeBits blocked) {
+        int index = def.index();
+        return !knowledge.get(index) && !blocked.get(index) && def.requirement().test(knowledge);
+    }
+
+    /** {@code true} si la frontière a été calculée pour ce registre et exactement cet état. */
+    public boolean isCurrent(KnowledgeRegistry registry, KnowledgeBits knowledge, KnowledgeBits blocked) {
+        return this.registry == registry && this.knowledge == knowledge && this.blocked == blocked;
+    }
+
+    public KnowledgeRegistry registry() {
+        return registry;
+    }
+
+    /** Informations apprenables, par indice interné. */
+    public KnowledgeBits learnable() {
+        return learnable;
+    }
+}
@@ -0,0 +1,79 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuConfig;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Catalogue immuable de tous les menus compilés.
+ *
+ * Construit une seule fois par {@link fr.kazotaruumc72.elbram.managers.MenuManager}
+ * (activation du plugin, /elbram reload, modification d'un fichier de menu) ; toutes
+ * les lectures se font ensuite en mémoire, sans accès disque ni parsing YAML.
+ * Chaque catalogue publié porte une {@link #getVersion() version} croissante : un
+ * lecteur qui garde une référence (GUI ouvert, transfert en cours) conserve un
+ * instantané cohérent pendant que le suivant est publié.
+ */
+public final class MenuCatalog {
+
+    /** Catalogue vide, utilisé tant qu'aucun chargement n'a abouti. */
+    public static final MenuCatalog EMPTY = new MenuCatalog(0L, Map.of(), new KnowledgeIds());
+
+    private final long version;
+    private final Map<String, MenuConfig> menus;
+    private final KnowledgeRegistry knowledge;
+
+    /**
+     * @param version numéro de version, croissant d'un catalogue publié au suivant
+     * @param menus   menus compilés indexés par nom (ex. "informations/tours"),
+     *                dans l'ordre d'enregistrement
+     * @param ids     table d'internement partagée par tous les catalogues successifs
+     * @throws IllegalStateException si les prérequis forment un cycle
+     */
+    public MenuCatalog(long version, Map<String, MenuConfig> menus, KnowledgeIds ids) {
+        this(version, menus, ids, null);
+    }
+
+    /**
+     * Variante relue d'un {@link CatalogSnapshot} : les fermetures de perte en cascade
+     * ne sont pas recalculées.
+     *
+     * @param cascades fermetures par identifiant, ou {@code null} pour les calculer
+     */
+    public MenuCatalog(long version, Map<String, MenuConfig> menus, KnowledgeIds ids,
+                       Map<String, List<String>> cascades) {
+        this.version = version;
+        this.menus = Collections.unmodifiableMap(new LinkedHashMap<>(menus));
+        this.knowledge = new KnowledgeRegistry(this.menus, ids, cascades);
+    }
+
+    /** Version du catalogue ({@code 0} pour le catalogue vide). */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Retourne le menu compilé, ou {@code null} s'il n'existe pas. */
+    public MenuConfig getMenu(String menuName) {
+        return menus.get(menuName);
+    }
+
+    /** Noms de tous les menus du catalogue, dans l'ordre d'enregistrement. */
+    public Set<String> getMenuNames() {
+        return menus.keySet();
+    }
+
+    /** Tous les menus compilés, dans l'ordre d'enregistrement. */
+    public Collection<MenuConfig> getMenus() {
+        return menus.values();
+    }
+
+    /** Index des Informations déclarées dans ce catalogue. */
+    public KnowledgeRegistry getKnowledge() {
+        return knowledge;
+    }
+}
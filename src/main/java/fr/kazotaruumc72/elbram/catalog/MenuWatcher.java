@@ -0,0 +1,101 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Surveille l'arborescence {@code menus/} et signale ses modifications.
+ *
+ * Tourne sur son propre thread. Une rafale de modifications (éditeur qui écrit
+ * un fichier en plusieurs fois, copie de plusieurs menus) ne produit qu'un seul
+ * signal, émis une fois le dossier resté calme pendant {@link #QUIET_MILLIS}.
+ */
+public final class MenuWatcher implements AutoCloseable {
+
+    private static final long QUIET_MILLIS = 500L;
+
+    private final Path root;
+    private final Runnable onChange;
+    private final Logger logger;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * @param root     dossier à surveiller, sous-dossiers compris
+     * @param onChange appelé (depuis le thread de surveillance) après chaque rafale de modifications
+     */
+    public MenuWatcher(Path root, Runnable onChange, Logger logger) throws IOException {
+        this.root = root;
+        this.onChange = onChange;
+        this.logger = logger;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerTree(root);
+        this.thread = new Thread(this::run, "Elbram-menus-watch");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                handle(watchService.take());
+                // Attend la fin de la rafale
+                WatchKey next;
+                while ((next = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    handle(next);
+                }
+                onChange.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException stopped) {
+            // Arrêt du plugin
+        }
+    }
+
+    private void handle(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && key.watchable() instanceof Path dir) {
+                Path created = dir.resolve((Path) event.context());
+                if (Files.isDirectory(created)) {
+                    registerTree(created);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void registerTree(Path dir) {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            dirs.filter(Files::isDirectory).forEach(d -> {
+                try {
+                    d.register(watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE);
+                } catch (IOException e) {
+                    logger.warning("Impossible de surveiller " + root.relativize(d) + " : " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warning("Impossible de parcourir " + dir + " : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
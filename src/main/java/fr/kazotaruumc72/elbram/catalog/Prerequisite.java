@@ -0,0 +1,278 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Expression de prérequis ({@code skill_required}) compilée en prédicat sur les
+ * indices internés des Informations apprises.
+ *
+ * Syntaxe, du moins au plus prioritaire :
+ * <pre>
+ *   a | b              au moins une des deux
+ *   a &amp; b              les deux
+ *   2 of (a, b, c)     au moins 2 des éléments de la liste
+ *   (a | b) &amp; c        parenthèses
+ * </pre>
+ * Un identifiant seul reste valide, ce qui couvre les menus existants.
+ *
+ * Chaque nœud est une porte à seuil : ses feuilles (identifiants) forment un
+ * masque de bits, ses sous-expressions sont des nœuds enfants, et il est vrai
+ * quand au moins {@code threshold} de ces opérandes le sont. Un ET vaut le nombre
+ * d'opérandes, un OU vaut 1 ; les ET (ou OU) imbriqués sont fusionnés à la
+ * compilation. L'évaluation d'un nœud coûte donc un comptage de bits sur quelques
+ * mots, plus ses éventuels enfants.
+ */
+public final class Prerequisite {
+
+    /** Absence de prérequis : toujours satisfait. */
+    public static final Prerequisite NONE = new Prerequisite(new int[0], KnowledgeBits.EMPTY, new Prerequisite[0], 0);
+
+    /** Feuilles dans l'ordre de déclaration (pour l'affichage). */
+    private final int[] leaves;
+    private final KnowledgeBits mask;
+    private final Prerequisite[] children;
+    private final int threshold;
+
+    private Prerequisite(int[] leaves, KnowledgeBits mask, Prerequisite[] children, int threshold) {
+        this.leaves = leaves;
+        this.mask = mask;
+        this.children = children;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Vérifie la syntaxe d'une expression sans la compiler.
+     *
+     * @throws IllegalArgumentException si l'expression est invalide
+     */
+    public static void validate(String expression) {
+        if (expression != null && !expression.isBlank()) {
+            new Parser(expression).parse();
+        }
+    }
+
+    /**
+     * Compile une expression ({@code null} ou vide : {@link #NONE}).
+     *
+     * @param indexOf indice interné d'un identifiant
+     * @throws IllegalArgumentException si l'expression est invalide
+     */
+    public static Prerequisite compile(String expression, ToIntFunction<String> indexOf) {
+        if (expression == null || expression.isBlank()) return NONE;
+        return new Parser(expression).parse().bind(indexOf);
+    }
+
+    /** {@code true} si l'ensemble d'Informations apprises satisfait l'expression. */
+    public boolean test(KnowledgeBits learned) {
+        int satisfied = learned.andCardinality(mask);
+        if (satisfied >= threshold) return true;
+        if (satisfied + children.length < threshold) return false;
+        for (Prerequisite child : children) {
+            if (child.test(learned) && ++satisfied >= threshold) return true;
+        }
+        return false;
+    }
+
+    /** {@code true} s'il n'y a aucun prérequis. */
+    public boolean isNone() {
+        return threshold == 0;
+    }
+
+    /** Toutes les Informations mentionnées par l'expression. */
+    public KnowledgeBits references() {
+        KnowledgeBits all = mask;
+        for (Prerequisite child : children) all = all.or(child.references());
+        return all;
+    }
+
+    /**
+     * Forme lisible de l'expression (ex. "A et (B ou C)", "2 parmi (X, Y, Z)").
+     *
+     * @param nameOf nom affiché d'une Information à partir de son indice interné
+     */
+    public String describe(IntFunction<String> nameOf) {
+        List<String> operands = new ArrayList<>();
+        for (int leaf : leaves) operands.add(nameOf.apply(leaf));
+        for (Prerequisite child : children) {
+            String described = child.describe(nameOf);
+            operands.add(child.operandCount() > 1 ? "(" + described + ")" : described);
+        }
+        int count = operandCount();
+        if (count <= 1) return String.join("", operands);
+        if (threshold == count) return String.join(" et ", operands);
+        if (threshold == 1) return String.join(" ou ", operands);
+        return threshold + " parmi (" + String.join(", ", operands) + ")";
+    }
+
+    private int operandCount() {
+        return leaves.length + children.length;
+    }
+
+    // -------------------------------------------------------------------------
+    // Analyse syntaxique
+    // -------------------------------------------------------------------------
+
+    /** Nœud non lié : identifiants encore sous forme de texte. */
+    private record Node(Set<String> leaves, List<Node> children, int threshold) {
+
+        boolean isAll() {
+            return threshold == leaves.size() + children.size();
+        }
+
+        Prerequisite bind(ToIntFunction<String> indexOf) {
+            int[] indices = new int[leaves.size()];
+            BitSet bits = new BitSet();
+            int i = 0;
+            for (String leaf : leaves) {
+                indices[i] = indexOf.applyAsInt(leaf);
+                bits.set(indices[i++]);
+            }
+            Prerequisite[] bound = new Prerequisite[children.size()];
+            for (int c = 0; c < bound.length; c++) bound[c] = children.get(c).bind(indexOf);
+            return new Prerequisite(indices, KnowledgeBits.of(bits), bound, threshold);
+        }
+    }
+
+    /** Analyseur descendant récursif. */
+    private static final class Parser {
+        private final String source;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+            tokenize();
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')' || c == '&' || c == '|' || c == ',') {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if (isIdentifierChar(c)) {
+                    int start = i;
+                    while (i < source.length() && isIdentifierChar(source.charAt(i))) i++;
+                    tokens.add(source.substring(start, i));
+                } else {
+                    throw error("caractère inattendu '" + c + "'");
+                }
+            }
+        }
+
+        private static boolean isIdentifierChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+        }
+
+        Node parse() {
+            Node node = parseOr();
+            if (position < tokens.size()) throw error("'" + tokens.get(position) + "' inattendu");
+            return node;
+        }
+
+        private Node parseOr() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept("|")) operands.add(parseAnd());
+            return combine(operands, false);
+        }
+
+        private Node parseAnd() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseAtom());
+            while (accept("&")) operands.add(parseAtom());
+            return combine(operands, true);
+        }
+
+        private Node parseAtom() {
+            String token = next();
+            if (token.equals("(")) {
+                Node inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            if (token.chars().allMatch(Character::isDigit) && accept("of")) {
+                int count = Integer.parseInt(token);
+                expect("(");
+                List<Node> operands = new ArrayList<>();
+                operands.add(parseOr());
+                while (accept(",")) operands.add(parseOr());
+                expect(")");
+                return threshold(operands, count);
+            }
+            if (token.length() == 1 && "()&|,".contains(token)) {
+                throw error("'" + token + "' inattendu");
+            }
+            return new Node(Set.of(token), List.of(), 1);
+        }
+
+        /** ET ou OU : les feuilles en double sont sans effet, les nœuds de même nature sont fusionnés. */
+        private static Node combine(List<Node> operands, boolean all) {
+            if (operands.size() == 1) return operands.get(0);
+            Set<String> leaves = new LinkedHashSet<>();
+            List<Node> children = new ArrayList<>();
+            for (Node operand : operands) {
+                boolean leaf = operand.children().isEmpty() && operand.leaves().size() == 1;
+                boolean sameKind = all ? operand.isAll() : operand.threshold() == 1;
+                if (leaf || sameKind) {
+                    leaves.addAll(operand.leaves());
+                    children.addAll(operand.children());
+                } else {
+                    children.add(operand);
+                }
+            }
+            int count = leaves.size() + children.size();
+            return new Node(leaves, List.copyOf(children), all ? count : 1);
+        }
+
+        /** {@code N of (...)} : chaque élément compte une fois, un doublon est une erreur. */
+        private Node threshold(List<Node> operands, int count) {
+            if (count < 1 || count > operands.size()) {
+                throw error(count + " of : le seuil doit être compris entre 1 et " + operands.size());
+            }
+            Set<String> leaves = new LinkedHashSet<>();
+            List<Node> children = new ArrayList<>();
+            for (Node operand : operands) {
+                if (operand.children().isEmpty() && operand.leaves().size() == 1) {
+                    String leaf = operand.leaves().iterator().next();
+                    if (!leaves.add(leaf)) throw error("'" + leaf + "' apparaît deux fois dans " + count + " of");
+                } else {
+                    children.add(operand);
+                }
+            }
+            return new Node(leaves, List.copyOf(children), count);
+        }
+
+        private String next() {
+            if (position >= tokens.size()) throw error("fin d'expression inattendue");
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) throw error("'" + token + "' attendu");
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Prérequis invalide \"" + source + "\" : " + message);
+        }
+    }
+}
@@ -18,7 +18,7 @@ import java.util.stream.Collectors;
  *
  * Sous-commandes :
  *   /elbram apprendre [joueur]  – Donne le Livre de Connaissances
- *   /elbram reload              – Recharge la configuration
+ *   /elbram reload              – Recharge la configuration et les menus
  */
 public class ElbramCommand implements CommandExecutor, TabCompleter {
 
@@ -86,7 +86,16 @@ public class ElbramCommand implements CommandExecutor, TabCompleter {
             return;
         }
         plugin.reloadConfig();
-        sender.sendMessage("§aElbram rechargé avec succès !");
+        plugin.getLootManager().reload();
+        plugin.getLootManager().resetRolls();
+        sender.sendMessage("§7Rechargement des menus...");
+        plugin.getMenuManager().reloadAsync().thenAccept(published -> {
+            if (published) {
+                sender.sendMessage("§aElbram rechargé avec succès !");
+            } else {
+                sender.sendMessage("§cMenus invalides, anciens menus conservés (voir la console).");
+            }
+        });
     }
 
     private void sendHelp(CommandSender sender) {
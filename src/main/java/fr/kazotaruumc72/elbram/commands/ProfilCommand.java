@@ -1,7 +1,11 @@
 package fr.kazotaruumc72.elbram.commands;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeRegistry;
 import fr.kazotaruumc72.elbram.gui.KnowledgeGUI;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -16,9 +20,15 @@ import java.util.List;
  * Ouvre le GUI de connaissances :
  *   - Première utilisation (aucune permission de catégorie) → menu des compétences
  *   - Sinon → menu des informations (skill tree)
+ *
+ * /profil resume affiche un résumé dans le chat : nombre d'Informations apprises,
+ * apprenables et bloquées, et les Informations apprenables dès maintenant.
  */
 public class ProfilCommand implements CommandExecutor, TabCompleter {
 
+    /** Nombre maximal d'Informations apprenables listées par le résumé. */
+    private static final int SUMMARY_LIMIT = 10;
+
     private final Elbram plugin;
 
     public ProfilCommand(Elbram plugin) {
@@ -32,13 +42,51 @@ public class ProfilCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        if (args.length >= 1 && args[0].equalsIgnoreCase("resume")) {
+            sendSummary(player);
+            return true;
+        }
+
         KnowledgeGUI gui = new KnowledgeGUI(plugin, player);
         gui.open();
         return true;
     }
 
+    // -------------------------------------------------------------------------
+
+    private void sendSummary(Player player) {
+        KnowledgeManager km = plugin.getKnowledgeManager();
+        KnowledgeManager.PlayerData data = km.getData(player.getUniqueId());
+        KnowledgeBits learnable = km.getLearnable(player.getUniqueId());
+        KnowledgeRegistry registry = plugin.getMenuManager().getCatalog().getKnowledge();
+
+        player.sendMessage("§6=== Profil de connaissances ===");
+        player.sendMessage("§7Apprises : §a" + data.knowledge().cardinality()
+                + " §8| §7Apprenables : §e" + learnable.cardinality()
+                + " §8| §7Bloquées : §c" + data.blocked().cardinality());
+
+        if (learnable.isEmpty()) {
+            player.sendMessage("§7Aucune Information n'est apprenable pour le moment.");
+            return;
+        }
+        player.sendMessage("§7Apprenables dès maintenant :");
+        int shown = 0;
+        for (int index = learnable.nextSetBit(0); index >= 0 && shown < SUMMARY_LIMIT; index = learnable.nextSetBit(index + 1)) {
+            KnowledgeDefinition def = registry.get(index);
+            if (def == null) continue;
+            player.sendMessage("§8- " + def.rarity().getLegacyColor() + def.displayName());
+            shown++;
+        }
+        if (learnable.cardinality() > shown) {
+            player.sendMessage("§8... et " + (learnable.cardinality() - shown) + " autre(s)");
+        }
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 1 && "resume".startsWith(args[0].toLowerCase())) {
+            return List.of("resume");
+        }
         return List.of();
     }
 }
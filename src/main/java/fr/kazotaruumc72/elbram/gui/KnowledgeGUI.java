@@ -1,16 +1,19 @@
 package fr.kazotaruumc72.elbram.gui;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeRegistry;
+import fr.kazotaruumc72.elbram.catalog.MenuCatalog;
 import fr.kazotaruumc72.elbram.managers.KnowledgeManager;
 import fr.kazotaruumc72.elbram.managers.MenuManager;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
-import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
 
 /**
  * GUI de 6 lignes (54 slots) du système de connaissances.
@@ -19,13 +22,27 @@ import org.bukkit.inventory.meta.ItemMeta;
  *   - Slots 0-3 et 5-8 : vitres grises sans nom (décoration)
  *   - Slot 4            : item configurable (navigation / ouverture de menu)
  * Lignes 2-6 (slots 9-53) : boutons d'apprentissage ou de sélection de catégorie
+ *
+ * L'inventaire est conservé tant que le joueur le regarde : un changement de menu
+ * ou un rafraîchissement ({@link #refresh()}) ne réécrit que les slots dont le
+ * contenu a changé, sans rouvrir la fenêtre côté client.
+ *
+ * Le GUI affiche un instantané du catalogue pris à l'ouverture d'un menu : un
+ * rechargement des menus ne s'applique qu'à la prochaine navigation.
  */
 public class KnowledgeGUI implements InventoryHolder {
 
+    private static final int SIZE = 54;
+
     private final Elbram plugin;
     private final Player player;
     private Inventory inventory;
+    private String inventoryTitle;
     private String currentMenu;
+    private MenuCatalog catalog;
+    private MenuManager.GuiTemplates templates;
+    /** Modèle affiché dans chaque slot (comparé par identité), {@code null} pour un slot vide. */
+    private final ItemStack[] rendered = new ItemStack[SIZE];
 
     public KnowledgeGUI(Elbram plugin, Player player) {
         this.plugin = plugin;
@@ -47,56 +64,110 @@ public class KnowledgeGUI implements InventoryHolder {
      */
     public void openMenu(String menuName) {
         this.currentMenu = menuName;
+        this.catalog = plugin.getMenuManager().getCatalog();
+        this.templates = plugin.getMenuManager().getGuiTemplates();
+
+        // Fenêtre déjà ouverte avec le bon titre : mise à jour sur place
+        if (isViewing() && templates.title().equals(inventoryTitle)) {
+            render();
+            return;
+        }
+
+        inventory = Bukkit.createInventory(this, SIZE, templates.title());
+        inventoryTitle = templates.title();
+        Arrays.fill(rendered, null);
+        render();
+        player.openInventory(inventory);
+    }
 
-        MenuManager.MenuConfig config = plugin.getMenuManager().loadMenu(menuName);
-        String title = ChatColor.translateAlternateColorCodes('&',
-                plugin.getConfig().getString("gui.title", "&8Connaissances"));
+    /**
+     * Met à jour le menu affiché après un changement d'état du joueur (ex. apprentissage) :
+     * seuls les slots modifiés sont renvoyés au client.
+     */
+    public void refresh() {
+        if (inventory == null) return;
+        render();
+    }
 
-        inventory = Bukkit.createInventory(this, 54, title);
+    private boolean isViewing() {
+        return inventory != null && player.getOpenInventory().getTopInventory() == inventory;
+    }
 
-        fillTopRow();
+    /** Calcule le contenu attendu de chaque slot et n'écrit que les différences. */
+    private void render() {
+        ItemStack[] desired = new ItemStack[SIZE];
+        fillTopRow(desired, templates);
+        MenuManager.MenuConfig config = getMenuConfig();
         if (config != null) {
-            fillContent(config);
+            fillContent(desired, config);
         }
 
-        player.openInventory(inventory);
+        for (int slot = 0; slot < SIZE; slot++) {
+            if (desired[slot] != rendered[slot]) {
+                inventory.setItem(slot, desired[slot]);
+                rendered[slot] = desired[slot];
+            }
+        }
     }
 
     // -------------------------------------------------------------------------
     // Construction du contenu
     // -------------------------------------------------------------------------
 
-    private void fillTopRow() {
-        // Vitre grise sans nom pour les 8 slots de décoration
-        ItemStack grayPane = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
-        ItemMeta paneMeta = grayPane.getItemMeta();
-        if (paneMeta != null) {
-            paneMeta.setDisplayName(" ");
-            grayPane.setItemMeta(paneMeta);
-        }
+    /*
+     * Les modèles partagés sont passés directement à setItem, qui copie l'item dans
+     * l'inventaire : aucun clone intermédiaire n'est nécessaire.
+     */
 
+    private void fillTopRow(ItemStack[] slots, MenuManager.GuiTemplates templates) {
+        // Vitre grise sans nom pour les 8 slots de décoration
         for (int i = 0; i < 9; i++) {
             if (i != 4) {
-                inventory.setItem(i, grayPane.clone());
+                slots[i] = templates.pane();
             }
         }
 
         // Item configurable au centre (slot 4)
-        inventory.setItem(4, plugin.getMenuManager().createSpecialItem());
+        slots[4] = templates.specialItem();
     }
 
-    private void fillContent(MenuManager.MenuConfig config) {
+    /*
+     * Une Information non apprise s'affiche "apprenable" si elle est dans la frontière
+     * du joueur, sinon avec la raison du verrouillage (prérequis manquant ou blocage) :
+     * un test de bit par item, quelle que soit la taille du catalogue.
+     */
+
+    private void fillContent(ItemStack[] slots, MenuManager.MenuConfig config) {
         KnowledgeManager km = plugin.getKnowledgeManager();
+        KnowledgeManager.PlayerData data = km.getData(player.getUniqueId());
+        KnowledgeRegistry registry = catalog.getKnowledge();
+        KnowledgeBits learnable = km.getLearnable(player.getUniqueId(), registry);
 
         for (MenuManager.MenuItem item : config.getItems()) {
             ItemStack itemStack;
             if (item.isKnowledgeItem()) {
-                boolean learned = km.hasLearned(player.getUniqueId(), item.getKnowledgeId());
-                itemStack = learned ? item.createLearnedItem() : item.createUnlearnedItem();
+                KnowledgeDefinition def = registry.get(item.getKnowledgeId());
+                int index = def != null ? def.index() : -1;
+                if (index < 0) {
+                    itemStack = item.getUnlearnedTemplate();
+                } else if (data.knowledge().get(index)) {
+                    itemStack = item.getLearnedTemplate();
+                } else if (learnable.get(index)) {
+                    itemStack = item.getUnlearnedTemplate();
+                } else if (data.blocked().get(index)) {
+                    itemStack = item.getBlockedTemplate();
+                } else {
+                    itemStack = item.getLockedTemplate(registry);
+                }
             } else {
-                itemStack = item.createCategoryItem();
+                itemStack = item.getCategoryTemplate();
+            }
+            long mask = item.getSlotMask();
+            while (mask != 0L) {
+                int slot = Long.numberOfTrailingZeros(mask);
+                if (slot < SIZE) slots[slot] = itemStack;
+                mask &= mask - 1;
             }
-            inventory.setItem(item.getSlot(), itemStack);
         }
     }
 
@@ -132,4 +203,14 @@ public class KnowledgeGUI implements InventoryHolder {
     public String getCurrentMenu() {
         return currentMenu;
     }
+
+    /** Registre des Informations du catalogue affiché, qui décide aussi des clics. */
+    public KnowledgeRegistry getRegistry() {
+        return catalog != null ? catalog.getKnowledge() : plugin.getMenuManager().getCatalog().getKnowledge();
+    }
+
+    /** Menu affiché, tel qu'il était dans le catalogue à son ouverture ({@code null} s'il n'existe pas). */
+    public MenuManager.MenuConfig getMenuConfig() {
+        return catalog != null ? catalog.getMenu(currentMenu) : null;
+    }
 }
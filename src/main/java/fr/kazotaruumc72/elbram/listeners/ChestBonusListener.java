@@ -1,66 +1,93 @@
 package fr.kazotaruumc72.elbram.listeners;
 
 import fr.kazotaruumc72.elbram.Elbram;
-import org.bukkit.Material;
+import fr.kazotaruumc72.elbram.loot.LootTable;
+import fr.kazotaruumc72.elbram.model.BonusType;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.world.LootGenerateEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Arrays;
-import java.util.Objects;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Applique le bonus "chest_loot" (Chercheur de Trésor) lors de l'ouverture
  * d'un coffre rechargé. Ce listener sert de point d'intégration pour le
- * système de rechargement de coffres (ex. Quantum).
+ * système de rechargement de coffres (ex. Quantum) : chaque coffre n'est évalué
+ * qu'une fois par remplissage (voir {@link fr.kazotaruumc72.elbram.managers.LootManager}).
+ * Un remplissage est détecté par {@link LootGenerateEvent} (table de butin vanilla
+ * ou réapprovisionnement Paper) ; à défaut, la réservation expire après
+ * {@code loot.roll-ttl-seconds}.
  *
- * Rang I  → +1 item, 20 % de chance par slot bonus
- * Rang II → +2 items, 40 % de chance par slot bonus
- * Rang III→ +3 items, 60 % de chance par slot bonus
+ * Le butin de chaque rang est défini dans {@code loot.chest-loot} (config.yml) ;
+ * par défaut :
+ * Rang I  → 1 tirage,  20 % de chance : fer ou or
+ * Rang II → 2 tirages, 40 % de chance : or ou diamant (1-2)
+ * Rang III→ 3 tirages, 60 % de chance : diamant (1-3)
  */
 public class ChestBonusListener implements Listener {
 
+    private static final BonusType CHEST_LOOT = BonusType.of("chest_loot");
+
     private final Elbram plugin;
-    private final Random random = new Random();
 
     public ChestBonusListener(Elbram plugin) {
         this.plugin = plugin;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLootGenerate(LootGenerateEvent event) {
+        // Le conteneur vient d'être rempli : son prochain tirage sera évalué
+        Location location = event.getLootContext().getLocation();
+        if (location != null) {
+            plugin.getLootManager().markRefilled(location);
+        }
+    }
+
     @EventHandler
     public void onInventoryOpen(InventoryOpenEvent event) {
+        // Personne en ligne n'a le bonus : rien à faire, sans autre lecture
+        if (!plugin.getBonusManager().hasOnlineHolders(CHEST_LOOT)) return;
         if (!(event.getPlayer() instanceof Player player)) return;
         Inventory inv = event.getInventory();
         if (inv.getType() != InventoryType.CHEST) return;
 
-        int tier = plugin.getBonusManager().getBonusTier(player.getUniqueId(), "chest_loot");
+        // Coffres réels uniquement (les menus n'ont pas de position)
+        Location location = inv.getLocation();
+        if (location == null) return;
+
+        int tier = plugin.getBonusManager().getBonusTier(player.getUniqueId(), CHEST_LOOT);
         if (tier <= 0) return;
 
-        // N'améliore que les coffres peu remplis (simulant un coffre fraîchement rechargé).
-        long filled = Arrays.stream(inv.getContents()).filter(Objects::nonNull).count();
-        if (filled > inv.getSize() / 3) return;
+        // N'améliore que les coffres peu remplis (pas un coffre rempli par un joueur)
+        if (countFilled(inv) > inv.getSize() / 3) return;
+
+        // Un seul tirage par remplissage du coffre
+        if (!plugin.getLootManager().claimRoll(location)) return;
 
-        int bonusSlots = tier;
-        for (int i = 0; i < bonusSlots; i++) {
-            if (random.nextInt(100) < (20 * tier)) {
-                addBonusItem(inv, tier);
-            }
+        LootTable table = plugin.getLootManager().getChestLoot(tier);
+        if (table == null) return;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < table.getRolls(); i++) {
+            if (!table.rollSucceeds(random)) continue;
+            int slot = inv.firstEmpty();
+            if (slot < 0) return;
+            inv.setItem(slot, table.sample(random));
         }
     }
 
-    private void addBonusItem(Inventory inv, int tier) {
-        int slot = inv.firstEmpty();
-        if (slot < 0) return;
-        Material mat = switch (tier) {
-            case 1  -> random.nextBoolean() ? Material.IRON_INGOT   : Material.GOLD_INGOT;
-            case 2  -> random.nextBoolean() ? Material.GOLD_INGOT   : Material.DIAMOND;
-            default -> Material.DIAMOND;
-        };
-        inv.setItem(slot, new ItemStack(mat, 1 + random.nextInt(tier)));
+    private static int countFilled(Inventory inv) {
+        int filled = 0;
+        for (ItemStack stack : inv.getContents()) {
+            if (stack != null) filled++;
+        }
+        return filled;
     }
 }
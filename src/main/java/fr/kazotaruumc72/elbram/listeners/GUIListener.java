@@ -1,6 +1,8 @@
 package fr.kazotaruumc72.elbram.listeners;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeRegistry;
 import fr.kazotaruumc72.elbram.gui.KnowledgeGUI;
 import fr.kazotaruumc72.elbram.managers.KnowledgeManager;
 import fr.kazotaruumc72.elbram.managers.MenuManager;
@@ -28,12 +30,9 @@ public class GUIListener implements Listener {
         // Annule tout déplacement d'item dans ce GUI
         event.setCancelled(true);
 
-        // Ignore les clics hors de l'inventaire du plugin
-        if (event.getClickedInventory() == null) return;
-        if (!event.getClickedInventory().equals(event.getInventory())) return;
-        if (event.getCurrentItem() == null) return;
-
-        int slot = event.getSlot();
+        // Ignore les clics hors de l'inventaire du plugin (les slots bruts 0-53 sont ceux du menu)
+        int slot = event.getRawSlot();
+        if (slot < 0 || slot >= MenuManager.MenuConfig.SIZE) return;
 
         // Slot 4 : item de navigation configurable
         if (slot == 4) {
@@ -41,16 +40,13 @@ public class GUIListener implements Listener {
             return;
         }
 
-        // Cherche l'item correspondant au slot cliqué dans le menu actuel
-        MenuManager.MenuConfig config = plugin.getMenuManager().loadMenu(gui.getCurrentMenu());
+        // Item du slot cliqué dans le menu actuel ; décorations et slots vides s'arrêtent ici
+        MenuManager.MenuConfig config = gui.getMenuConfig();
         if (config == null) return;
+        MenuManager.MenuItem item = config.getItemAt(slot);
+        if (item == null || item.getClickAction() == MenuManager.MenuItem.ClickAction.NONE) return;
 
-        for (MenuManager.MenuItem item : config.getItems()) {
-            if (item.getSlot() == slot) {
-                handleMenuItemClick(player, gui, item);
-                return;
-            }
-        }
+        handleMenuItemClick(player, gui, item);
     }
 
     // -------------------------------------------------------------------------
@@ -67,12 +63,11 @@ public class GUIListener implements Listener {
     }
 
     private void handleMenuItemClick(Player player, KnowledgeGUI gui, MenuManager.MenuItem item) {
-        if (item.isKnowledgeItem()) {
-            learnKnowledge(player, gui, item);
-        } else if ("open_submenu".equals(item.getAction())) {
-            openSubmenu(player, gui, item);
-        } else if ("close".equals(item.getAction())) {
-            player.closeInventory();
+        switch (item.getClickAction()) {
+            case LEARN        -> learnKnowledge(player, gui, item);
+            case OPEN_SUBMENU -> openSubmenu(player, gui, item);
+            case CLOSE        -> player.closeInventory();
+            case NONE         -> { }
         }
     }
 
@@ -90,18 +85,20 @@ public class GUIListener implements Listener {
             return;
         }
 
-        String skill = item.getSkillRequired();
-        if (skill != null && !skill.isEmpty() && !km.hasLearned(player.getUniqueId(), skill)) {
-            String skillName = plugin.getMenuManager().getKnowledgeName(skill);
-            player.sendMessage("§cPrérequis manquant : §e" + skillName);
+        // Ni apprise ni bloquée : hors de la frontière, c'est que le prérequis manque.
+        // Même catalogue que l'affichage, pour que le clic confirme ce que le menu montre
+        KnowledgeRegistry registry = gui.getRegistry();
+        KnowledgeDefinition def = registry.get(id);
+        if (def != null && !km.getLearnable(player.getUniqueId(), registry).get(def.index())) {
+            player.sendMessage("§cPrérequis manquant : §e" + registry.describe(def.requirement()));
             return;
         }
 
         km.learn(player.getUniqueId(), id);
         player.sendMessage("§a✔ Vous avez appris : §e" + id);
 
-        // Rafraîchit le GUI pour refléter l'état appris
-        gui.openMenu(gui.getCurrentMenu());
+        // Met à jour sur place les slots modifiés par l'apprentissage
+        gui.refresh();
     }
 
     private void openSubmenu(Player player, KnowledgeGUI gui, MenuManager.MenuItem item) {
@@ -0,0 +1,39 @@
+package fr.kazotaruumc72.elbram.listeners;
+
+import fr.kazotaruumc72.elbram.Elbram;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Précharge les connaissances d'un joueur pendant la pré-connexion asynchrone
+ * (aucun accès disque sur le thread principal à sa première interaction)
+ * et programme leur libération à la déconnexion.
+ */
+public class PlayerConnectionListener implements Listener {
+
+    private final Elbram plugin;
+
+    public PlayerConnectionListener(Elbram plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        plugin.getKnowledgeManager().preload(event.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        plugin.getKnowledgeManager().onJoin(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        plugin.getKnowledgeManager().onQuit(event.getPlayer().getUniqueId());
+    }
+}
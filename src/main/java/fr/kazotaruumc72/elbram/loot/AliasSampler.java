@@ -0,0 +1,72 @@
+package fr.kazotaruumc72.elbram.loot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tirage pondéré en temps constant (méthode des alias de Walker, variante de Vose).
+ *
+ * Les poids sont compilés une fois en deux tableaux ; chaque tirage coûte ensuite
+ * un entier et un réel aléatoires, quel que soit le nombre d'entrées. Immuable.
+ */
+public final class AliasSampler {
+
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    private AliasSampler(double[] probabilities, int[] aliases) {
+        this.probabilities = probabilities;
+        this.aliases = aliases;
+    }
+
+    /**
+     * @param weights poids positifs, un par entrée
+     * @throws IllegalArgumentException si la liste est vide ou contient un poids nul, négatif ou non fini
+     */
+    public static AliasSampler of(double[] weights) {
+        int n = weights.length;
+        if (n == 0) throw new IllegalArgumentException("aucune entrée");
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight > 0) || !Double.isFinite(weight)) {
+                throw new IllegalArgumentException("poids invalide : " + weight);
+            }
+            total += weight;
+        }
+
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            (scaled[i] < 1.0 ? small : large).push(i);
+        }
+
+        double[] probabilities = new double[n];
+        int[] aliases = new int[n];
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            (scaled[more] < 1.0 ? small : large).push(more);
+        }
+        // Restes dus aux arrondis : probabilité 1
+        while (!large.isEmpty()) probabilities[large.pop()] = 1.0;
+        while (!small.isEmpty()) probabilities[small.pop()] = 1.0;
+        return new AliasSampler(probabilities, aliases);
+    }
+
+    /** Tire l'indice d'une entrée, proportionnellement à son poids. */
+    public int sample(RandomGenerator random) {
+        int column = random.nextInt(probabilities.length);
+        return random.nextDouble() < probabilities[column] ? column : aliases[column];
+    }
+
+    /** Nombre d'entrées. */
+    public int size() {
+        return probabilities.length;
+    }
+}
@@ -0,0 +1,132 @@
+package fr.kazotaruumc72.elbram.loot;
+
+/**
+ * Ensemble des conteneurs d'un monde dont le bonus de butin a déjà été tiré.
+ *
+ * Table à adressage ouvert (sondage linéaire) indexée par la position du bloc
+ * compactée dans un {@code long} : aucune allocation par ouverture de coffre.
+ * Une entrée n'est valide que jusqu'à son expiration et pour la génération
+ * courante : {@link #reset()} invalide toute la table d'un coup, et les entrées
+ * périmées sont libérées au prochain agrandissement.
+ *
+ * Synchronisé ; utilisable depuis n'importe quel thread.
+ */
+public final class ContainerRollIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    /** Date d'expiration en millisecondes, {@code 0} pour une case libre. */
+    private long[] expiries = new long[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int size;
+    private int generation;
+
+    /**
+     * Réserve le tirage du conteneur en (x, y, z) jusqu'à {@code expiresAt}.
+     *
+     * @return {@code true} si le conteneur n'avait pas encore été tiré (ou si sa réservation
+     *         a expiré ou été annulée), {@code false} s'il l'a déjà été
+     */
+    public synchronized boolean claim(int x, int y, int z, long now, long expiresAt) {
+        long key = pack(x, y, z);
+        int slot = find(key);
+        if (slot >= 0) {
+            if (generations[slot] == generation && expiries[slot] > now) return false;
+            expiries[slot] = expiresAt;
+            generations[slot] = generation;
+            return true;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(now);
+        }
+        insert(key, expiresAt, generation);
+        return true;
+    }
+
+    /** Annule la réservation d'un conteneur (il vient d'être rempli à nouveau). */
+    public synchronized void release(int x, int y, int z) {
+        int slot = find(pack(x, y, z));
+        if (slot < 0) return;
+
+        // Suppression par décalage arrière : la chaîne de sondage reste continue
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (hole + 1) & mask; expiries[i] != 0; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                expiries[hole] = expiries[i];
+                generations[hole] = generations[i];
+                hole = i;
+            }
+        }
+        expiries[hole] = 0;
+        size--;
+    }
+
+    /** Annule toutes les réservations (remplissage général des conteneurs). */
+    public synchronized void reset() {
+        generation++;
+    }
+
+    /** Nombre d'entrées occupées, périmées comprises. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Compacte la position d'un bloc : x et z sur 26 bits (±33 millions de blocs,
+     * au-delà de la bordure du monde), y sur 12 bits (-2048 à 2047).
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; expiries[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return i;
+        }
+        return -1;
+    }
+
+    private void insert(long key, long expiresAt, int entryGeneration) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (expiries[i] != 0) i = (i + 1) & mask;
+        keys[i] = key;
+        expiries[i] = expiresAt;
+        generations[i] = entryGeneration;
+        size++;
+    }
+
+    /** Reconstruit la table sans les entrées périmées, en la doublant si elle reste trop pleine. */
+    private void rehash(long now) {
+        long[] oldKeys = keys;
+        long[] oldExpiries = expiries;
+        int[] oldGenerations = generations;
+
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldExpiries[i] > now && oldGenerations[i] == generation) live++;
+        }
+        int capacity = oldKeys.length;
+        while ((live + 1) * 4 > capacity) capacity *= 2;
+
+        keys = new long[capacity];
+        expiries = new long[capacity];
+        generations = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldExpiries[i] > now && oldGenerations[i] == generation) {
+                insert(oldKeys[i], oldExpiries[i], generation);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,59 @@
+package fr.kazotaruumc72.elbram.loot;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Table de butin compilée pour un rang de bonus.
+ *
+ * Chacun des {@code rolls} tirages réussit avec la probabilité {@code chance} (en %)
+ * et produit une entrée choisie selon son poids ({@link AliasSampler}). Les items
+ * sont construits une fois au chargement : un tirage ne fait que cloner le modèle.
+ */
+public final class LootTable {
+
+    private final int rolls;
+    private final double chance;
+    private final List<Entry> entries;
+    private final AliasSampler sampler;
+
+    public LootTable(int rolls, double chance, List<Entry> entries) {
+        this.rolls = rolls;
+        this.chance = chance;
+        this.entries = List.copyOf(entries);
+        double[] weights = new double[this.entries.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = this.entries.get(i).weight();
+        }
+        this.sampler = AliasSampler.of(weights);
+    }
+
+    public int getRolls() { return rolls; }
+    public double getChance() { return chance; }
+    public List<Entry> getEntries() { return entries; }
+
+    /** Retourne true si un tirage réussit (probabilité {@link #getChance()}). */
+    public boolean rollSucceeds(RandomGenerator random) {
+        return random.nextDouble() * 100.0 < chance;
+    }
+
+    /** Tire une entrée et retourne un nouvel item, de quantité aléatoire dans sa plage. */
+    public ItemStack sample(RandomGenerator random) {
+        Entry entry = entries.get(sampler.sample(random));
+        ItemStack item = entry.template().clone();
+        item.setAmount(entry.minAmount() + random.nextInt(entry.maxAmount() - entry.minAmount() + 1));
+        return item;
+    }
+
+    /**
+     * Entrée d'une table de butin.
+     *
+     * @param template  item modèle (matériau, nom, lore, custom model data), jamais modifié
+     * @param weight    poids relatif
+     * @param minAmount quantité minimale
+     * @param maxAmount quantité maximale (incluse)
+     */
+    public record Entry(ItemStack template, double weight, int minAmount, int maxAmount) {}
+}
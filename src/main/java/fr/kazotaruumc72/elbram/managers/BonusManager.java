@@ -1,48 +1,111 @@
 package fr.kazotaruumc72.elbram.managers;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.api.BonusService;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.model.BonusDefinition;
+import fr.kazotaruumc72.elbram.model.BonusType;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Gère les bonus accordés aux joueurs via les informations apprises.
- * Chaque information peut déclarer une liste de bonus (ex. "chest_loot:1").
- * Les bonus sont de la forme "identifiant" ou "identifiant:rang".
+ * Chaque information peut déclarer une liste de bonus (ex. "chest_loot:1"),
+ * compilés en {@link BonusDefinition} (voir sa syntaxe) ; une déclaration invalide
+ * est signalée et ignorée au chargement.
+ *
+ * Les déclarations sont compilées une fois ({@link #init()}) en tables d'indices,
+ * et chaque joueur résident dispose d'une table « bonus → rang maximal » tenue à
+ * jour à chaque modification de ses connaissances : une requête de bonus est une
+ * simple lecture de tableau, sans allocation.
+ *
+ * Le nombre de joueurs connectés détenant chaque bonus est tenu à jour
+ * ({@link #hasOnlineHolders(BonusType)}) : les listeners liés à un bonus
+ * peuvent ignorer les événements tant que personne ne le possède.
+ *
+ * Publié pour les autres plugins sous l'interface {@link BonusService}.
  */
-public class BonusManager {
+public class BonusManager implements BonusService {
 
     private final Elbram plugin;
-    /** knowledgeId → liste de bonus strings (ex. ["chest_loot:1"]) */
-    private final Map<String, List<String>> knowledgeBonuses = new HashMap<>();
+    /** knowledgeId → bonus compilés (catalogue, puis enregistrements par code) */
+    private final Map<String, List<BonusDefinition>> knowledgeBonuses = new LinkedHashMap<>();
+    /** Bonus enregistrés par code ({@link #registerBonus}), gardés par le moniteur de {@code knowledgeBonuses}. */
+    private final Map<String, List<BonusDefinition>> registeredBonuses = new LinkedHashMap<>();
+    /** Déclarations compilées, remplacées en bloc à chaque enregistrement. */
+    private volatile CompiledBonuses compiled = CompiledBonuses.EMPTY;
+    /** Table des rangs de chaque joueur résident. */
+    private final Map<UUID, TierTable> tables = new ConcurrentHashMap<>();
+    /** Rangs comptés pour chaque joueur connecté, gardés par {@code holdersLock}. */
+    private final Map<UUID, int[]> countedTiers = new HashMap<>();
+    private final Object holdersLock = new Object();
+    /** indice de {@link BonusType} → nombre de joueurs connectés qui le possèdent */
+    private volatile AtomicIntegerArray onlineHolders = new AtomicIntegerArray(0);
 
     public BonusManager(Elbram plugin) {
         this.plugin = plugin;
     }
 
     /**
-     * Parcourt tous les menus enregistrés et enregistre les bonus déclarés
-     * sur les items de connaissance. À appeler après l'initialisation du MenuManager.
+     * Parcourt le registre des Informations et enregistre les bonus déclarés
+     * sur chacune d'elles. À appeler après l'initialisation du MenuManager, puis
+     * à chaque rechargement du catalogue : les bonus enregistrés par
+     * {@link #registerBonus} sont conservés et priment sur ceux des menus.
      */
     public void init() {
-        MenuManager mm = plugin.getMenuManager();
-        for (String menuName : mm.getRegisteredMenus()) {
-            MenuManager.MenuConfig config = mm.loadMenu(menuName);
-            if (config == null) continue;
-            for (MenuManager.MenuItem item : config.getItems()) {
-                if (item.isKnowledgeItem() && !item.getBonuses().isEmpty()) {
-                    registerBonus(item.getKnowledgeId(), item.getBonuses());
+        synchronized (knowledgeBonuses) {
+            knowledgeBonuses.clear();
+            for (KnowledgeDefinition def : plugin.getMenuManager().getCatalog().getKnowledge().getAll()) {
+                if (!def.bonuses().isEmpty()) {
+                    knowledgeBonuses.put(def.id(), parse(def.id(), def.bonuses()));
                 }
             }
+            knowledgeBonuses.putAll(registeredBonuses);
+            recompile();
         }
     }
 
-    /** Associe une liste de bonus à un knowledgeId. */
+    /**
+     * Associe une liste de bonus à un knowledgeId, en remplaçant ceux déclarés dans
+     * les menus. L'association survit aux rechargements du catalogue.
+     */
     public void registerBonus(String knowledgeId, List<String> bonuses) {
-        knowledgeBonuses.put(knowledgeId, new ArrayList<>(bonuses));
+        synchronized (knowledgeBonuses) {
+            List<BonusDefinition> definitions = parse(knowledgeId, bonuses);
+            registeredBonuses.put(knowledgeId, definitions);
+            knowledgeBonuses.put(knowledgeId, definitions);
+            recompile();
+        }
+    }
+
+    /** Bonus compilés accordés par une Information (liste vide si elle n'en accorde aucun). */
+    public List<BonusDefinition> getDefinitions(String knowledgeId) {
+        synchronized (knowledgeBonuses) {
+            return knowledgeBonuses.getOrDefault(knowledgeId, List.of());
+        }
+    }
+
+    private List<BonusDefinition> parse(String knowledgeId, List<String> declarations) {
+        List<BonusDefinition> definitions = new ArrayList<>(declarations.size());
+        for (String declaration : declarations) {
+            try {
+                definitions.add(BonusDefinition.parse(declaration));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Bonus ignoré pour '" + knowledgeId + "' : " + e.getMessage());
+            }
+        }
+        return List.copyOf(definitions);
     }
 
     /**
@@ -50,17 +113,12 @@ public class BonusManager {
      * le bonus identifié par {@code bonusId}.
      */
     public boolean hasBonus(UUID playerId, String bonusId) {
-        KnowledgeManager km = plugin.getKnowledgeManager();
-        for (Map.Entry<String, List<String>> entry : knowledgeBonuses.entrySet()) {
-            if (km.hasLearned(playerId, entry.getKey())) {
-                for (String bonus : entry.getValue()) {
-                    if (bonus.equals(bonusId) || bonus.startsWith(bonusId + ":")) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return getBonusTier(playerId, bonusId) > 0;
+    }
+
+    /** Variante de {@link #hasBonus(UUID, String)} pour un type déjà résolu. */
+    public boolean hasBonus(UUID playerId, BonusType type) {
+        return getBonusTier(playerId, type) > 0;
     }
 
     /**
@@ -68,24 +126,259 @@ public class BonusManager {
      * Un bonus sans rang (ex. "chest_loot") vaut 1. Retourne 0 si le joueur n'a pas le bonus.
      */
     public int getBonusTier(UUID playerId, String bonusId) {
+        BonusType type = BonusType.find(bonusId);
+        return type != null ? getBonusTier(playerId, type) : 0;
+    }
+
+    /** Variante de {@link #getBonusTier(UUID, String)} pour un type déjà résolu : une simple lecture de tableau. */
+    @Override
+    public int getBonusTier(UUID playerId, BonusType type) {
+        CompiledBonuses bonuses = compiled;
+        int bonus = type.index();
+        if (bonus >= bonuses.grantors.length) return 0;
+        return tableFor(playerId, bonuses).tiers[bonus];
+    }
+
+    @Override
+    public BonusType bonusType(String bonusId) {
+        return BonusType.of(bonusId);
+    }
+
+    /**
+     * Rangs d'un bonus pour un groupe de joueurs : une lecture de table par joueur,
+     * quel que soit le nombre d'Informations du catalogue.
+     */
+    @Override
+    public void getBonusTiers(Collection<UUID> playerIds, BonusType type, int[] tiers) {
+        if (tiers.length < playerIds.size()) {
+            throw new IllegalArgumentException("Tableau de résultats trop court : " + tiers.length + " < " + playerIds.size());
+        }
+        CompiledBonuses bonuses = compiled;
+        int bonus = type.index();
+        if (bonus >= bonuses.grantors.length) {
+            Arrays.fill(tiers, 0, playerIds.size(), 0);
+            return;
+        }
+        int i = 0;
+        for (UUID playerId : playerIds) {
+            tiers[i++] = tableFor(playerId, bonuses).tiers[bonus];
+        }
+    }
+
+    /** Nombre de joueurs connectés qui possèdent le bonus. */
+    public int getOnlineHolders(BonusType type) {
+        AtomicIntegerArray holders = onlineHolders;
+        return type.index() < holders.length() ? holders.get(type.index()) : 0;
+    }
+
+    /** Retourne true si au moins un joueur connecté possède le bonus. */
+    public boolean hasOnlineHolders(BonusType type) {
+        return getOnlineHolders(type) > 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Tables par joueur
+    // -------------------------------------------------------------------------
+
+    /**
+     * Met à jour la table d'un joueur après une modification de ses connaissances.
+     * Appelé par le {@link KnowledgeManager} sous le verrou du joueur ; sans effet
+     * si le joueur n'a pas encore de table.
+     */
+    void onKnowledgeChanged(UUID playerId, KnowledgeBits knowledge) {
+        TierTable table = tables.get(playerId);
+        if (table != null && table.bonuses == compiled) {
+            tables.put(playerId, table.advance(knowledge));
+        }
+        synchronized (holdersLock) {
+            if (countedTiers.containsKey(playerId)) {
+                count(playerId, tiersOf(playerId, knowledge));
+            }
+        }
+    }
+
+    /** Compte les bonus d'un joueur qui se connecte. Appelé sous le verrou du joueur. */
+    void onJoin(UUID playerId, KnowledgeBits knowledge) {
+        synchronized (holdersLock) {
+            count(playerId, tiersOf(playerId, knowledge));
+        }
+    }
+
+    /** Retire des compteurs un joueur qui se déconnecte. Appelé sous le verrou du joueur. */
+    void onQuit(UUID playerId) {
+        synchronized (holdersLock) {
+            int[] previous = countedTiers.remove(playerId);
+            if (previous != null) addHolders(previous, -1);
+        }
+    }
+
+    /** Remplace les rangs comptés pour un joueur connecté. L'appelant détient {@code holdersLock}. */
+    private void count(UUID playerId, int[] tiers) {
+        int[] previous = countedTiers.put(playerId, tiers);
+        if (previous != null) addHolders(previous, -1);
+        addHolders(tiers, 1);
+    }
+
+    private void addHolders(int[] tiers, int delta) {
+        AtomicIntegerArray holders = onlineHolders;
+        for (int bonus = 0; bonus < tiers.length; bonus++) {
+            if (tiers[bonus] > 0) holders.addAndGet(bonus, delta);
+        }
+    }
+
+    /** Rangs du joueur pour l'état {@code knowledge}, selon les bonus compilés courants. */
+    private int[] tiersOf(UUID playerId, KnowledgeBits knowledge) {
+        TierTable table = tables.get(playerId);
+        if (table != null && table.bonuses == compiled && table.source == knowledge) {
+            return table.tiers;
+        }
+        TierTable fresh = TierTable.build(compiled, knowledge);
+        tables.put(playerId, fresh);
+        return fresh.tiers;
+    }
+
+    /** Oublie la table d'un joueur dont l'état vient d'être libéré. */
+    void forget(UUID playerId) {
+        tables.remove(playerId);
+    }
+
+    /**
+     * Table à jour pour l'état courant du joueur. Une table périmée (modification
+     * concurrente, rechargement des bonus) est recalculée à partir de l'état lu.
+     */
+    private TierTable tableFor(UUID playerId, CompiledBonuses bonuses) {
         KnowledgeManager km = plugin.getKnowledgeManager();
-        int maxTier = 0;
-        for (Map.Entry<String, List<String>> entry : knowledgeBonuses.entrySet()) {
-            if (km.hasLearned(playerId, entry.getKey())) {
-                for (String bonus : entry.getValue()) {
-                    if (bonus.equals(bonusId)) {
-                        maxTier = Math.max(maxTier, 1);
-                    } else if (bonus.startsWith(bonusId + ":")) {
-                        try {
-                            int tier = Integer.parseInt(bonus.substring(bonusId.length() + 1));
-                            maxTier = Math.max(maxTier, tier);
-                        } catch (NumberFormatException ignored) {
-                            plugin.getLogger().warning("Rang de bonus invalide pour '" + entry.getKey() + "' : " + bonus);
-                        }
-                    }
+        KnowledgeBits knowledge = km.getData(playerId).knowledge();
+        TierTable table = tables.get(playerId);
+        if (table != null && table.bonuses == bonuses && table.source == knowledge) {
+            return table;
+        }
+
+        TierTable fresh = table != null && table.bonuses == bonuses
+                ? table.advance(knowledge)
+                : TierTable.build(bonuses, knowledge);
+        // Seuls les joueurs résidents gardent une table : le cache hors ligne n'en a pas besoin
+        km.whileResident(playerId, () -> {
+            if (km.getData(playerId).knowledge() == knowledge) tables.put(playerId, fresh);
+        });
+        return fresh;
+    }
+
+    /**
+     * Recompile les déclarations et recompte les joueurs connectés.
+     * Ceux-ci sont résidents : leur lecture ne prend aucun verrou de joueur.
+     */
+    private void recompile() {
+        synchronized (holdersLock) {
+            compiled = CompiledBonuses.compile(knowledgeBonuses, plugin.getKnowledgeManager().getKnowledgeIds());
+            tables.clear();
+            onlineHolders = new AtomicIntegerArray(compiled.grantors.length);
+            for (Map.Entry<UUID, int[]> entry : countedTiers.entrySet()) {
+                int[] tiers = tiersOf(entry.getKey(), plugin.getKnowledgeManager().getData(entry.getKey()).knowledge());
+                entry.setValue(tiers);
+                addHolders(tiers, 1);
+            }
+        }
+    }
+
+    /** Bonus compilés en indices denses (connaissances et {@link BonusType}). Immuable. */
+    private static final class CompiledBonuses {
+
+        static final CompiledBonuses EMPTY = new CompiledBonuses(new int[0][], new int[0][]);
+        private static final int[] NO_GRANTS = new int[0];
+
+        /** indice de connaissance → paires (bonus, rang) qu'elle accorde */
+        final int[][] grants;
+        /** indice de {@link BonusType} → paires (connaissance, rang) qui l'accordent */
+        final int[][] grantors;
+
+        private CompiledBonuses(int[][] grants, int[][] grantors) {
+            this.grants = grants;
+            this.grantors = grantors;
+        }
+
+        int[] grantsOf(int knowledge) {
+            return knowledge < grants.length && grants[knowledge] != null ? grants[knowledge] : NO_GRANTS;
+        }
+
+        static CompiledBonuses compile(Map<String, List<BonusDefinition>> declarations, KnowledgeIds ids) {
+            int[][] grantors = new int[BonusType.count()][];
+            Arrays.fill(grantors, NO_GRANTS);
+            Map<Integer, int[]> grants = new HashMap<>();
+            int maxKnowledge = -1;
+
+            for (Map.Entry<String, List<BonusDefinition>> entry : declarations.entrySet()) {
+                int knowledge = ids.intern(entry.getKey());
+                int[] pairs = NO_GRANTS;
+                for (BonusDefinition definition : entry.getValue()) {
+                    int bonus = definition.type().index();
+                    pairs = append(pairs, bonus, definition.tier());
+                    grantors[bonus] = append(grantors[bonus], knowledge, definition.tier());
+                }
+                grants.put(knowledge, pairs);
+                maxKnowledge = Math.max(maxKnowledge, knowledge);
+            }
+
+            int[][] byKnowledge = new int[maxKnowledge + 1][];
+            grants.forEach((knowledge, pairs) -> byKnowledge[knowledge] = pairs);
+            return new CompiledBonuses(byKnowledge, grantors);
+        }
+
+        private static int[] append(int[] pairs, int a, int b) {
+            int[] grown = Arrays.copyOf(pairs, pairs.length + 2);
+            grown[pairs.length] = a;
+            grown[pairs.length + 1] = b;
+            return grown;
+        }
+    }
+
+    /** Rangs de chaque bonus pour un état de connaissances donné. Immuable. */
+    private static final class TierTable {
+
+        final CompiledBonuses bonuses;
+        /** État à partir duquel la table a été calculée (comparé par identité). */
+        final KnowledgeBits source;
+        final int[] tiers;
+
+        private TierTable(CompiledBonuses bonuses, KnowledgeBits source, int[] tiers) {
+            this.bonuses = bonuses;
+            this.source = source;
+            this.tiers = tiers;
+        }
+
+        static TierTable build(CompiledBonuses bonuses, KnowledgeBits knowledge) {
+            int[] tiers = new int[bonuses.grantors.length];
+            knowledge.forEach(k -> grant(bonuses, k, tiers));
+            return new TierTable(bonuses, knowledge, tiers);
+        }
+
+        /** Table du nouvel état, déduite de celle-ci par les seules connaissances gagnées ou perdues. */
+        TierTable advance(KnowledgeBits knowledge) {
+            if (knowledge == source) return this;
+            int[] updated = tiers.clone();
+            knowledge.andNot(source).forEach(k -> grant(bonuses, k, updated));
+            source.andNot(knowledge).forEach(k -> {
+                int[] pairs = bonuses.grantsOf(k);
+                for (int i = 0; i < pairs.length; i += 2) {
+                    updated[pairs[i]] = recompute(bonuses.grantors[pairs[i]], knowledge);
                 }
+            });
+            return new TierTable(bonuses, knowledge, updated);
+        }
+
+        private static void grant(CompiledBonuses bonuses, int knowledge, int[] tiers) {
+            int[] pairs = bonuses.grantsOf(knowledge);
+            for (int i = 0; i < pairs.length; i += 2) {
+                tiers[pairs[i]] = Math.max(tiers[pairs[i]], pairs[i + 1]);
+            }
+        }
+
+        private static int recompute(int[] grantors, KnowledgeBits knowledge) {
+            int max = 0;
+            for (int i = 0; i < grantors.length; i += 2) {
+                if (knowledge.get(grantors[i])) max = Math.max(max, grantors[i + 1]);
             }
+            return max;
         }
-        return maxTier;
     }
 }
@@ -1,35 +1,125 @@
 package fr.kazotaruumc72.elbram.managers;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeRegistry;
+import fr.kazotaruumc72.elbram.catalog.LearnableFrontier;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
 import fr.kazotaruumc72.elbram.model.Rarity;
-import org.bukkit.configuration.file.YamlConfiguration;
+import fr.kazotaruumc72.elbram.storage.FlatFileKnowledgeStorage;
+import fr.kazotaruumc72.elbram.storage.KnowledgeStorage;
+import fr.kazotaruumc72.elbram.storage.KnowledgeStorage.StoredPlayer;
+import fr.kazotaruumc72.elbram.storage.SqlKnowledgeStorage;
+import fr.kazotaruumc72.elbram.storage.WriteBehindQueue;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 /**
  * Gère les connaissances apprises par chaque joueur ainsi que les connaissances
  * bloquées (définitivement non réacquérables).
  *
- * Les données sont stockées dans plugins/Elbram/players/&lt;uuid&gt;.yml.
+ * Les données sont persistées par un {@link KnowledgeStorage} choisi par
+ * {@code storage.type} : fichiers par joueur ({@link FlatFileKnowledgeStorage},
+ * par défaut) ou base SQLite embarquée ({@link SqlKnowledgeStorage}).
+ * Les écritures sont différées ({@link WriteBehindQueue}) : les modifications ne
+ * touchent jamais le disque depuis le thread principal.
+ *
+ * Seuls les joueurs connectés restent en mémoire : leurs données sont préchargées
+ * pendant la pré-connexion asynchrone et libérées quelques instants après leur
+ * déconnexion. Les consultations de joueurs hors ligne passent par un cache borné.
  * Une connaissance bloquée ne peut jamais être réapprise.
+ *
+ * Chaque joueur résident porte sa {@link LearnableFrontier} (Informations
+ * apprenables), mise à jour incrémentalement à chaque modification de son état.
+ *
+ * En mémoire, les identifiants sont internés ({@link KnowledgeIds}) et l'état de
+ * chaque joueur tient en deux {@link KnowledgeBits} : les tests d'appartenance
+ * et les pertes sont de simples opérations sur des mots de 64 bits.
+ *
+ * Utilisable depuis n'importe quel thread. L'état d'un joueur est un instantané
+ * immuable remplacé en bloc (copy-on-write) : les lectures d'un joueur connecté
+ * se font sans verrou. Les modifications d'un même joueur sont sérialisées par un
+ * verrou choisi parmi {@value #LOCK_STRIPES} ; {@link #teach} prend les deux verrous
+ * concernés toujours dans le même ordre, ce qui exclut tout interblocage.
  */
 public class KnowledgeManager {
 
+    private static final int LOCK_STRIPES = 64;
+
     private final Elbram plugin;
-    private final Map<UUID, Set<String>> playerKnowledge = new HashMap<>();
-    /** Connaissances définitivement verrouillées pour chaque joueur (ne peuvent être réapprises). */
-    private final Map<UUID, Set<String>> playerBlocked   = new HashMap<>();
+    /** Connaissances apprises et définitivement verrouillées (ne peuvent être réapprises) des joueurs connectés. */
+    private final Map<UUID, PlayerData> players = new ConcurrentHashMap<>();
+    /**
+     * Joueurs hors ligne consultés récemment et données préchargées avant connexion
+     * (LRU borné, protégé par son propre moniteur car alimenté depuis la pré-connexion asynchrone).
+     */
+    private final Map<UUID, PlayerData> offlineCache;
+    /** Frontière d'apprentissage des joueurs résidents, avancée à chaque modification de leur état. */
+    private final Map<UUID, LearnableFrontier> frontiers = new ConcurrentHashMap<>();
     private final File playersDir;
+    /** Dictionnaire persistant des identifiants (players/ids.dat), partagé avec les catalogues. */
+    private final KnowledgeIds knowledgeIds;
+    private final KnowledgeStorage storage;
+    private final WriteBehindQueue writeBehind;
+    /** Verrous de modification, répartis par hachage de l'UUID. */
+    private final Object[] locks = new Object[LOCK_STRIPES];
 
     public KnowledgeManager(Elbram plugin) {
+        this(plugin, ids -> createStorage(plugin, ids));
+    }
+
+    /**
+     * @param storageFactory support de persistance, créé à partir du dictionnaire
+     *                       des identifiants une fois celui-ci ouvert
+     */
+    KnowledgeManager(Elbram plugin, Function<KnowledgeIds, KnowledgeStorage> storageFactory) {
         this.plugin = plugin;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
         this.playersDir = new File(plugin.getDataFolder(), "players");
         if (!playersDir.exists()) {
             playersDir.mkdirs();
         }
+        try {
+            this.knowledgeIds = KnowledgeIds.open(new File(playersDir, "ids.dat"));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible d'ouvrir le dictionnaire des connaissances : " + e.getMessage(), e);
+        }
+        this.storage = storageFactory.apply(knowledgeIds);
+        this.writeBehind = new WriteBehindQueue(plugin, storage);
+        writeBehind.start();
+
+        int cacheSize = Math.max(1, plugin.getConfig().getInt("storage.offline-cache-size", 256));
+        this.offlineCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerData> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    private static KnowledgeStorage createStorage(Elbram plugin, KnowledgeIds knowledgeIds) {
+        File playersDir = new File(plugin.getDataFolder(), "players");
+        String type = plugin.getConfig().getString("storage.type", "flatfile");
+        try {
+            if ("sqlite".equalsIgnoreCase(type)) {
+                File database = new File(plugin.getDataFolder(), plugin.getConfig().getString("storage.sqlite.file", "knowledge.db"));
+                int poolSize = Math.max(1, plugin.getConfig().getInt("storage.sqlite.pool-size", 4));
+                // Les joueurs encore dans players/ sont importés dans la base à leur première lecture
+                FlatFileKnowledgeStorage previous = new FlatFileKnowledgeStorage(playersDir, knowledgeIds, plugin.getLogger());
+                return new SqlKnowledgeStorage(database, knowledgeIds, poolSize, previous);
+            }
+            return new FlatFileKnowledgeStorage(playersDir, knowledgeIds, plugin.getLogger());
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -38,22 +128,202 @@ public class KnowledgeManager {
 
     /** Retourne true si le joueur a déjà appris cette connaissance. */
     public boolean hasLearned(UUID playerId, String knowledgeId) {
-        return getKnowledge(playerId).contains(knowledgeId);
+        int index = ids().indexOf(knowledgeId);
+        return index >= 0 && getData(playerId).knowledge().get(index);
     }
 
     /** Retourne true si la connaissance est définitivement verrouillée pour ce joueur. */
     public boolean isBlocked(UUID playerId, String knowledgeId) {
-        return getBlocked(playerId).contains(knowledgeId);
+        int index = ids().indexOf(knowledgeId);
+        return index >= 0 && getData(playerId).blocked().get(index);
     }
 
-    /** Retourne toutes les connaissances apprises par un joueur (vue immuable). */
+    /** Retourne toutes les connaissances apprises par un joueur (copie immuable). */
     public Set<String> getAllLearned(UUID playerId) {
-        return Collections.unmodifiableSet(getKnowledge(playerId));
+        return toIds(getData(playerId).knowledge());
     }
 
-    /** Retourne toutes les connaissances bloquées pour un joueur (vue immuable). */
+    /** Retourne toutes les connaissances bloquées pour un joueur (copie immuable). */
     public Set<String> getAllBlocked(UUID playerId) {
-        return Collections.unmodifiableSet(getBlocked(playerId));
+        return toIds(getData(playerId).blocked());
+    }
+
+    /** Retourne l'état interné d'un joueur (instantané immuable). */
+    public PlayerData getData(UUID playerId) {
+        PlayerData data = lookup(playerId);
+        if (data != null) return data;
+
+        // Joueur ni préchargé ni en cache : lecture synchrone (joueur hors ligne en général)
+        StoredPlayer loaded = loadPlayerData(playerId);
+        synchronized (lockFor(playerId)) {
+            data = lookup(playerId);
+            if (data != null) return data;
+            store(playerId, loaded.data());
+            migrateIfLegacy(playerId, loaded);
+            return loaded.data();
+        }
+    }
+
+    /**
+     * Informations que le joueur peut apprendre maintenant (prérequis satisfait,
+     * ni apprises ni bloquées), par indice interné, selon le catalogue courant.
+     */
+    public KnowledgeBits getLearnable(UUID playerId) {
+        return getLearnable(playerId, plugin.getMenuManager().getCatalog().getKnowledge());
+    }
+
+    /**
+     * Variante de {@link #getLearnable(UUID)} selon un registre donné, ex. celui du
+     * catalogue affiché par un GUI ouvert avant un rechargement des menus.
+     * Une frontière périmée (autre registre, modification concurrente) est
+     * recalculée ; seuls les joueurs résidents conservent la leur.
+     */
+    public KnowledgeBits getLearnable(UUID playerId, KnowledgeRegistry registry) {
+        PlayerData data = getData(playerId);
+        LearnableFrontier frontier = frontiers.get(playerId);
+        if (frontier != null && frontier.isCurrent(registry, data.knowledge(), data.blocked())) {
+            return frontier.learnable();
+        }
+
+        LearnableFrontier fresh = frontier != null && frontier.registry() == registry
+                ? frontier.advance(data.knowledge(), data.blocked())
+                : LearnableFrontier.build(registry, data.knowledge(), data.blocked());
+        // Calculée hors verrou : n'est gardée que si l'état lu est toujours celui du joueur résident
+        whileResident(playerId, () -> {
+            if (players.get(playerId) == data) frontiers.put(playerId, fresh);
+        });
+        return fresh.learnable();
+    }
+
+    /** Retourne true si l'état du joueur est résident (connecté, ou déconnecté depuis moins du délai d'éviction). */
+    public boolean isResident(UUID playerId) {
+        return players.containsKey(playerId);
+    }
+
+    /**
+     * Exécute {@code action} sous le verrou du joueur, seulement s'il est encore résident.
+     * Les caches dérivés calculés hors verrou (frontière, tables de bonus) y sont écrits,
+     * pour qu'une éviction concurrente ne puisse pas être annulée par leur écriture.
+     */
+    void whileResident(UUID playerId, Runnable action) {
+        synchronized (lockFor(playerId)) {
+            if (players.containsKey(playerId)) action.run();
+        }
+    }
+
+    /** État en mémoire d'un joueur, ou {@code null} s'il n'est pas chargé. */
+    private PlayerData lookup(UUID playerId) {
+        PlayerData data = players.get(playerId);
+        if (data != null) return data;
+        synchronized (offlineCache) {
+            return offlineCache.get(playerId);
+        }
+    }
+
+    /**
+     * Remplace l'état d'un joueur, dans la table des connectés ou dans le cache hors ligne.
+     * L'appelant détient le verrou du joueur.
+     */
+    private void store(UUID playerId, PlayerData data) {
+        if (players.containsKey(playerId) || plugin.getServer().getPlayer(playerId) != null) {
+            players.put(playerId, data);
+        } else {
+            synchronized (offlineCache) {
+                offlineCache.put(playerId, data);
+            }
+        }
+        plugin.getBonusManager().onKnowledgeChanged(playerId, data.knowledge());
+        LearnableFrontier frontier = frontiers.get(playerId);
+        if (frontier != null) {
+            frontiers.put(playerId, frontier.advance(data.knowledge(), data.blocked()));
+        }
+    }
+
+    /**
+     * Programme la réécriture d'un joueur lu dans un ancien format (fichier YAML).
+     * L'appelant détient le verrou du joueur et vient de publier {@code loaded} : aucun état
+     * plus récent ne peut donc être écrasé.
+     */
+    private void migrateIfLegacy(UUID playerId, StoredPlayer loaded) {
+        if (loaded.legacy()) {
+            writeBehind.markDirty(playerId, loaded.data());
+        }
+    }
+
+    /** Remplace l'état d'un joueur et programme son écriture. L'appelant détient le verrou du joueur. */
+    private void update(UUID playerId, PlayerData data) {
+        store(playerId, data);
+        writeBehind.markDirty(playerId, data);
+    }
+
+    private Object lockFor(UUID playerId) {
+        return locks[stripeOf(playerId)];
+    }
+
+    private static int stripeOf(UUID playerId) {
+        int h = playerId.hashCode();
+        return (h ^ (h >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    // -------------------------------------------------------------------------
+    // Cycle de vie des joueurs connectés
+    // -------------------------------------------------------------------------
+
+    /**
+     * Précharge les données d'un joueur qui se connecte.
+     * Appelé depuis la pré-connexion asynchrone, hors du thread principal.
+     */
+    public void preload(UUID playerId) {
+        StoredPlayer loaded = loadPlayerData(playerId);
+        synchronized (lockFor(playerId)) {
+            if (players.containsKey(playerId)) return;
+            synchronized (offlineCache) {
+                if (offlineCache.putIfAbsent(playerId, loaded.data()) != null) return;
+            }
+            migrateIfLegacy(playerId, loaded);
+        }
+    }
+
+    /** Rend résidentes les données d'un joueur qui vient de se connecter (thread principal). */
+    public void onJoin(UUID playerId) {
+        synchronized (lockFor(playerId)) {
+            PlayerData data = players.get(playerId);
+            if (data == null) {
+                synchronized (offlineCache) {
+                    data = offlineCache.remove(playerId);
+                }
+                if (data != null) {
+                    players.put(playerId, data);
+                } else {
+                    StoredPlayer loaded = loadPlayerData(playerId);
+                    data = loaded.data();
+                    players.put(playerId, data);
+                    migrateIfLegacy(playerId, loaded);
+                }
+            }
+            plugin.getBonusManager().onJoin(playerId, data.knowledge());
+        }
+    }
+
+    /**
+     * Retire le joueur des compteurs de bonus, puis libère ses données après {@code storage.evict-delay-seconds},
+     * s'il ne s'est pas reconnecté entre-temps. Son dernier état reste dans la file
+     * d'écriture différée jusqu'à ce qu'il soit sur le disque.
+     */
+    public void onQuit(UUID playerId) {
+        synchronized (lockFor(playerId)) {
+            plugin.getBonusManager().onQuit(playerId);
+        }
+        long delayTicks = Math.max(0L, plugin.getConfig().getLong("storage.evict-delay-seconds", 60L)) * 20L;
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            synchronized (lockFor(playerId)) {
+                if (plugin.getServer().getPlayer(playerId) == null) {
+                    players.remove(playerId);
+                    frontiers.remove(playerId);
+                    plugin.getBonusManager().forget(playerId);
+                }
+            }
+        }, delayTicks);
     }
 
     // -------------------------------------------------------------------------
@@ -67,10 +337,13 @@ public class KnowledgeManager {
      *         {@code false} si la connaissance était déjà apprise ou bloquée.
      */
     public boolean learn(UUID playerId, String knowledgeId) {
-        if (isBlocked(playerId, knowledgeId)) return false;
-        getKnowledge(playerId).add(knowledgeId);
-        savePlayer(playerId);
-        return true;
+        int index = ids().intern(knowledgeId);
+        synchronized (lockFor(playerId)) {
+            PlayerData data = getData(playerId);
+            if (data.blocked().get(index)) return false;
+            update(playerId, new PlayerData(data.knowledge().with(index), data.blocked()));
+            return true;
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -89,8 +362,10 @@ public class KnowledgeManager {
      *   <li>Le receveur subit une perte aléatoire : chaque Information vulnérable
      *       (COMMON → EPIC) a une probabilité configurable d'être définitivement perdue.</li>
      *   <li>Le donneur subit une perte en cascade (obsolescence descendante) :
-     *       la connaissance transmise et toutes celles qui en dépendent (skill_required)
-     *       sont retirées et définitivement bloquées pour lui.</li>
+     *       la connaissance transmise et toutes celles dont le prérequis (skill_required)
+     *       ne peut plus être satisfait sans elle sont retirées et définitivement
+     *       bloquées pour lui. Une Information qui garde une alternative non bloquée pour
+     *       le donneur (ex. {@code b} dans {@code a | b}) n'est pas perdue.</li>
      * </ol>
      *
      * @param giverId    UUID du joueur qui enseigne
@@ -99,39 +374,65 @@ public class KnowledgeManager {
      * @return un {@link TeachResult} décrivant le résultat de l'opération
      */
     public TeachResult teach(UUID giverId, UUID receiverId, String knowledgeId) {
+        // Verrous des deux joueurs, toujours pris par indice croissant
+        int giverStripe    = stripeOf(giverId);
+        int receiverStripe = stripeOf(receiverId);
+        Object first  = locks[Math.min(giverStripe, receiverStripe)];
+        Object second = locks[Math.max(giverStripe, receiverStripe)];
+        synchronized (first) {
+            synchronized (second) {
+                return teachLocked(giverId, receiverId, knowledgeId);
+            }
+        }
+    }
+
+    /** Corps de {@link #teach}, exécuté sous les verrous des deux joueurs. */
+    private TeachResult teachLocked(UUID giverId, UUID receiverId, String knowledgeId) {
+        KnowledgeRegistry registry = plugin.getMenuManager().getCatalog().getKnowledge();
+
         // 1. Rareté transférable ?
-        Rarity rarity = plugin.getMenuManager().getKnowledgeRarity(knowledgeId);
+        KnowledgeDefinition def = registry.get(knowledgeId);
+        Rarity rarity = def != null ? def.rarity() : Rarity.COMMON;
         if (!rarity.isTransferable()) {
             return new TeachResult(TeachResult.Status.NOT_TRANSFERABLE, List.of(), List.of());
         }
 
-        // 2. Le donneur possède la connaissance ?
-        if (!hasLearned(giverId, knowledgeId)) {
+        // 2. Le donneur possède la connaissance ? L'identifiant vient de la commande :
+        //    il n'est jamais interné, un identifiant inconnu ne peut pas être possédé
+        int index = ids().indexOf(knowledgeId);
+        PlayerData giver = getData(giverId);
+        if (index < 0 || !giver.knowledge().get(index)) {
             return new TeachResult(TeachResult.Status.GIVER_DOES_NOT_HAVE, List.of(), List.of());
         }
 
         // 3. Le receveur ne la possède pas et elle n'est pas bloquée pour lui ?
-        if (hasLearned(receiverId, knowledgeId)) {
+        PlayerData receiver = getData(receiverId);
+        if (receiver.knowledge().get(index)) {
             return new TeachResult(TeachResult.Status.RECEIVER_ALREADY_HAS, List.of(), List.of());
         }
-        if (isBlocked(receiverId, knowledgeId)) {
+        if (receiver.blocked().get(index)) {
             return new TeachResult(TeachResult.Status.RECEIVER_BLOCKED, List.of(), List.of());
         }
 
         // 4. Transfert effectif
-        getKnowledge(receiverId).add(knowledgeId);
+        KnowledgeBits received = receiver.knowledge().with(index);
 
-        // 5. Perte aléatoire chez le receveur (avant sauvegarde)
-        List<String> receiverLosses = applyRandomLoss(receiverId, knowledgeId);
+        // 5. Perte aléatoire chez le receveur
+        KnowledgeBits receiverLost = applyRandomLoss(registry, received, index);
 
-        // 6. Perte en cascade chez le donneur
-        List<String> giverLosses = applyCascadeLoss(giverId, knowledgeId);
+        // 6. Perte en cascade chez le donneur : fermeture descendante de la connaissance
+        //    transmise, ses Informations déjà bloquées ne comptant plus comme alternatives
+        KnowledgeBits cascade = registry.getCascade(index, giver.blocked());
+        KnowledgeBits giverLost = giver.knowledge().and(cascade);
 
-        // Sauvegarde finale des deux joueurs
-        savePlayer(receiverId);
-        savePlayer(giverId);
+        // Publication des deux joueurs, sauvegardés ensemble dans un même lot atomique
+        PlayerData newReceiver = new PlayerData(received.andNot(receiverLost), receiver.blocked().or(receiverLost));
+        PlayerData newGiver    = new PlayerData(giver.knowledge().andNot(cascade), giver.blocked().or(cascade));
+        store(receiverId, newReceiver);
+        store(giverId, newGiver);
+        writeBehind.markDirty(Map.of(receiverId, newReceiver, giverId, newGiver));
 
-        return new TeachResult(TeachResult.Status.SUCCESS, receiverLosses, giverLosses);
+        return new TeachResult(TeachResult.Status.SUCCESS, toIdList(receiverLost), toIdList(giverLost));
     }
 
     // -------------------------------------------------------------------------
@@ -139,126 +440,93 @@ public class KnowledgeManager {
     // -------------------------------------------------------------------------
 
     /**
-     * Applique la perte aléatoire chez le receveur.
+     * Tire la perte aléatoire chez le receveur.
      * Chaque connaissance vulnérable (COMMON → EPIC) a une probabilité
      * {@code transfer.receiver-loss-chance} % d'être définitivement perdue.
+     * Une connaissance absente du catalogue est traitée comme COMMON.
      *
-     * @param receiverId    UUID du receveur
-     * @param justLearnedId identifiant de la connaissance fraîchement reçue (immunisée)
-     * @return liste des identifiants définitivement perdus
+     * @param registry      registre du catalogue utilisé pour tout le transfert
+     * @param learned       connaissances du receveur, transfert compris
+     * @param justLearned   indice de la connaissance fraîchement reçue (immunisée)
+     * @return connaissances définitivement perdues
      */
-    private List<String> applyRandomLoss(UUID receiverId, String justLearnedId) {
-        List<String> lost = new ArrayList<>();
+    private KnowledgeBits applyRandomLoss(KnowledgeRegistry registry, KnowledgeBits learned, int justLearned) {
         double lossChance = plugin.getConfig().getDouble("transfer.receiver-loss-chance", 30.0) / 100.0;
-        if (lossChance <= 0) return lost;
-
-        // Copie pour éviter la modification concurrente
-        Set<String> snapshot = new HashSet<>(getKnowledge(receiverId));
-        snapshot.remove(justLearnedId);
+        if (lossChance <= 0) return KnowledgeBits.EMPTY;
 
-        MenuManager mm = plugin.getMenuManager();
-        for (String id : snapshot) {
-            Rarity r = mm.getKnowledgeRarity(id);
+        BitSet lost = new BitSet();
+        for (int i = learned.nextSetBit(0); i >= 0; i = learned.nextSetBit(i + 1)) {
+            if (i == justLearned) continue;
+            KnowledgeDefinition def = registry.get(i);
+            Rarity r = def != null ? def.rarity() : Rarity.COMMON;
             if (r.isLossVulnerable() && ThreadLocalRandom.current().nextDouble() < lossChance) {
-                getKnowledge(receiverId).remove(id);
-                getBlocked(receiverId).add(id);
-                lost.add(id);
-            }
-        }
-        return lost;
-    }
-
-    /**
-     * Applique l'obsolescence en cascade chez le donneur.
-     * La connaissance transmise ET toutes celles qui en dépendent directement ou
-     * indirectement (via {@code skill_required}) sont retirées et définitivement bloquées.
-     *
-     * @param giverId     UUID du donneur
-     * @param knowledgeId identifiant de la connaissance transmise
-     * @return liste des identifiants effectivement retirés du donneur
-     */
-    private List<String> applyCascadeLoss(UUID giverId, String knowledgeId) {
-        Set<String> toBlock = new LinkedHashSet<>();
-        collectCascade(knowledgeId, toBlock, new HashSet<>());
-
-        List<String> actuallyLost = new ArrayList<>();
-        for (String id : toBlock) {
-            getBlocked(giverId).add(id);
-            if (getKnowledge(giverId).remove(id)) {
-                actuallyLost.add(id);
+                lost.set(i);
             }
         }
-        return actuallyLost;
-    }
-
-    /**
-     * Collecte récursivement tous les identifiants impactés par la cascade,
-     * en suivant les liens {@code skill_required}.
-     */
-    private void collectCascade(String knowledgeId, Set<String> result, Set<String> visited) {
-        if (!visited.add(knowledgeId)) return; // déjà visité
-        result.add(knowledgeId);
-        for (String dependent : plugin.getMenuManager().getDependentKnowledge(knowledgeId)) {
-            collectCascade(dependent, result, visited);
-        }
+        return KnowledgeBits.of(lost);
     }
 
     // -------------------------------------------------------------------------
-    // Accès aux données internes
+    // Conversion indices ↔ identifiants
     // -------------------------------------------------------------------------
 
-    private Set<String> getKnowledge(UUID playerId) {
-        ensureLoaded(playerId);
-        return playerKnowledge.get(playerId);
+    /** Dictionnaire persistant des identifiants, partagé par tous les catalogues successifs. */
+    public KnowledgeIds getKnowledgeIds() {
+        return knowledgeIds;
     }
 
-    private Set<String> getBlocked(UUID playerId) {
-        ensureLoaded(playerId);
-        return playerBlocked.get(playerId);
+    private KnowledgeIds ids() {
+        return knowledgeIds;
     }
 
-    /** Charge atomiquement knowledge et blocked depuis le disque si pas encore en mémoire. */
-    private void ensureLoaded(UUID playerId) {
-        if (!playerKnowledge.containsKey(playerId)) {
-            PlayerData data = loadPlayerData(playerId);
-            playerKnowledge.put(playerId, data.knowledge);
-            playerBlocked.put(playerId, data.blocked);
-        }
+    private Set<String> toIds(KnowledgeBits bits) {
+        Set<String> result = new HashSet<>();
+        KnowledgeIds ids = ids();
+        bits.forEach(i -> result.add(ids.get(i)));
+        return Collections.unmodifiableSet(result);
+    }
+
+    private List<String> toIdList(KnowledgeBits bits) {
+        List<String> result = new ArrayList<>();
+        KnowledgeIds ids = ids();
+        bits.forEach(i -> result.add(ids.get(i)));
+        return result;
     }
 
     // -------------------------------------------------------------------------
     // Persistance
     // -------------------------------------------------------------------------
 
-    private PlayerData loadPlayerData(UUID playerId) {
-        File file = new File(playersDir, playerId + ".yml");
-        if (!file.exists()) {
-            return new PlayerData(new HashSet<>(), new HashSet<>());
+    /**
+     * Lit l'état d'un joueur. Un état encore en attente d'écriture prime sur le stockage.
+     * Peut être appelé hors du thread principal.
+     */
+    private StoredPlayer loadPlayerData(UUID playerId) {
+        PlayerData pending = writeBehind.getPending(playerId);
+        if (pending != null) {
+            return new StoredPlayer(pending, false);
         }
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-        Set<String> knowledge = new HashSet<>(config.getStringList("knowledge"));
-        Set<String> blocked   = new HashSet<>(config.getStringList("blocked"));
-        return new PlayerData(knowledge, blocked);
-    }
-
-    private void savePlayer(UUID playerId) {
-        File file = new File(playersDir, playerId + ".yml");
-        YamlConfiguration config = new YamlConfiguration();
-        config.set("knowledge", new ArrayList<>(getKnowledge(playerId)));
-        config.set("blocked",   new ArrayList<>(getBlocked(playerId)));
         try {
-            config.save(file);
+            return storage.load(playerId);
         } catch (IOException e) {
-            plugin.getLogger().severe("Impossible de sauvegarder les données du joueur " + playerId + " : " + e.getMessage());
+            plugin.getLogger().severe("Impossible de charger les données du joueur " + playerId + " : " + e.getMessage());
+            return new StoredPlayer(PlayerData.EMPTY, false);
         }
     }
 
-    /** Sauvegarde toutes les données en mémoire sur le disque. */
+    /** Écrit immédiatement, de façon synchrone, toutes les modifications en attente. */
     public void saveAll() {
-        Set<UUID> allPlayers = new HashSet<>(playerKnowledge.keySet());
-        allPlayers.addAll(playerBlocked.keySet());
-        for (UUID playerId : allPlayers) {
-            savePlayer(playerId);
+        writeBehind.flush();
+    }
+
+    /** Arrête la sauvegarde différée après une dernière écriture synchrone (arrêt du plugin). */
+    public void close() {
+        writeBehind.close();
+        try {
+            storage.close();
+            knowledgeIds.close();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossible de fermer le stockage des connaissances : " + e.getMessage());
         }
     }
 
@@ -266,8 +534,13 @@ public class KnowledgeManager {
     // Classes imbriquées
     // =========================================================================
 
-    /** Données combinées pour un joueur (chargement atomique). */
-    private record PlayerData(Set<String> knowledge, Set<String> blocked) {}
+    /**
+     * État immuable d'un joueur : connaissances apprises et bloquées, par indice interné.
+     * Toute modification remplace l'instance entière.
+     */
+    public record PlayerData(KnowledgeBits knowledge, KnowledgeBits blocked) {
+        public static final PlayerData EMPTY = new PlayerData(KnowledgeBits.EMPTY, KnowledgeBits.EMPTY);
+    }
 
     /**
      * Résultat d'un appel à {@link KnowledgeManager#teach}.
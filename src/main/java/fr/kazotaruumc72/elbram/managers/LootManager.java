@@ -0,0 +1,184 @@
+package fr.kazotaruumc72.elbram.managers;
+
+import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.loot.ContainerRollIndex;
+import fr.kazotaruumc72.elbram.loot.LootTable;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gère le butin bonus des conteneurs rechargés.
+ *
+ * Chaque conteneur n'est évalué qu'une fois par remplissage : son tirage est
+ * réservé jusqu'à l'expiration de {@code loot.roll-ttl-seconds}, ou jusqu'à ce
+ * qu'un nouveau remplissage soit signalé via {@link #markRefilled(Location)}
+ * (génération de butin du conteneur) ou {@link #resetRolls()} ({@code /elbram reload}).
+ *
+ * Les tables de butin par rang ({@code loot.chest-loot}) sont compilées à chaque
+ * rechargement en {@link LootTable} : aucune lecture de configuration à l'ouverture d'un coffre.
+ */
+public class LootManager {
+
+    private final Elbram plugin;
+    /** UUID du monde → conteneurs déjà tirés */
+    private final Map<UUID, ContainerRollIndex> rolls = new ConcurrentHashMap<>();
+    private volatile long rollTtlMillis;
+    /** rang → table de butin du bonus chest_loot (rang déclaré le plus proche en dessous) */
+    private volatile LootTable[] chestLoot = new LootTable[0];
+
+    public LootManager(Elbram plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /** Relit la configuration du butin et recompile les tables. */
+    public void reload() {
+        rollTtlMillis = Math.max(1L, plugin.getConfig().getLong("loot.roll-ttl-seconds", 1800L)) * 1000L;
+        chestLoot = compileTiers(plugin.getConfig().getConfigurationSection("loot.chest-loot"));
+    }
+
+    /**
+     * Table de butin du bonus chest_loot pour un rang : celle du rang déclaré le plus
+     * proche en dessous, ou {@code null} si aucun rang inférieur ou égal n'est déclaré.
+     */
+    public LootTable getChestLoot(int tier) {
+        LootTable[] tables = chestLoot;
+        if (tables.length == 0 || tier <= 0) return null;
+        return tables[Math.min(tier, tables.length - 1)];
+    }
+
+    /**
+     * Réserve le tirage du bonus pour le conteneur situé en {@code location}.
+     *
+     * @return {@code true} si le conteneur n'a pas encore été évalué depuis son dernier remplissage
+     */
+    public boolean claimRoll(Location location) {
+        if (location.getWorld() == null) return false;
+        long now = System.currentTimeMillis();
+        return rolls.computeIfAbsent(location.getWorld().getUID(), world -> new ContainerRollIndex())
+                .claim(location.getBlockX(), location.getBlockY(), location.getBlockZ(), now, now + rollTtlMillis);
+    }
+
+    /** Signale qu'un conteneur vient d'être rempli à nouveau : son prochain tirage sera évalué. */
+    public void markRefilled(Location location) {
+        if (location.getWorld() == null) return;
+        ContainerRollIndex index = rolls.get(location.getWorld().getUID());
+        if (index != null) {
+            index.release(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+    }
+
+    /** Signale un remplissage général : tous les conteneurs seront de nouveau évalués. */
+    public void resetRolls() {
+        for (ContainerRollIndex index : rolls.values()) {
+            index.reset();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Compilation des tables
+    // -------------------------------------------------------------------------
+
+    private LootTable[] compileTiers(ConfigurationSection section) {
+        if (section == null) return new LootTable[0];
+        TreeMap<Integer, LootTable> declared = new TreeMap<>();
+        for (String key : section.getKeys(false)) {
+            int tier;
+            try {
+                tier = Integer.parseInt(key);
+            } catch (NumberFormatException e) {
+                plugin.getLogger().warning("Rang de butin invalide : " + key);
+                continue;
+            }
+            ConfigurationSection tierSection = section.getConfigurationSection(key);
+            if (tier <= 0 || tierSection == null) {
+                plugin.getLogger().warning("Rang de butin invalide : " + key);
+                continue;
+            }
+            LootTable table = compileTable(key, tierSection);
+            if (table != null) declared.put(tier, table);
+        }
+        if (declared.isEmpty()) return new LootTable[0];
+
+        LootTable[] tables = new LootTable[declared.lastKey() + 1];
+        for (int tier = 1; tier < tables.length; tier++) {
+            Map.Entry<Integer, LootTable> floor = declared.floorEntry(tier);
+            tables[tier] = floor != null ? floor.getValue() : null;
+        }
+        return tables;
+    }
+
+    private LootTable compileTable(String tier, ConfigurationSection section) {
+        List<LootTable.Entry> entries = new ArrayList<>();
+        for (Map<?, ?> raw : section.getMapList("entries")) {
+            try {
+                entries.add(compileEntry(raw));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Entrée de butin ignorée (rang " + tier + ") : " + e.getMessage());
+            }
+        }
+        if (entries.isEmpty()) {
+            plugin.getLogger().warning("Table de butin vide pour le rang " + tier + ", ignorée");
+            return null;
+        }
+        int rolls = Math.max(0, section.getInt("rolls", 1));
+        double chance = Math.max(0.0, Math.min(100.0, section.getDouble("chance", 100.0)));
+        return new LootTable(rolls, chance, entries);
+    }
+
+    private LootTable.Entry compileEntry(Map<?, ?> raw) {
+        Object materialName = raw.get("material");
+        Material material = materialName != null ? Material.matchMaterial(materialName.toString()) : null;
+        if (material == null) throw new IllegalArgumentException("matériau inconnu : " + materialName);
+
+        double weight = raw.get("weight") instanceof Number n ? n.doubleValue() : 1.0;
+        if (!(weight > 0)) throw new IllegalArgumentException("poids invalide pour " + material + " : " + weight);
+
+        int minAmount = 1;
+        int maxAmount = 1;
+        Object amount = raw.get("amount");
+        if (amount instanceof Number n) {
+            minAmount = maxAmount = n.intValue();
+        } else if (amount != null) {
+            String[] range = amount.toString().split("-", 2);
+            try {
+                minAmount = Integer.parseInt(range[0].trim());
+                maxAmount = range.length > 1 ? Integer.parseInt(range[1].trim()) : minAmount;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("quantité invalide pour " + material + " : " + amount);
+            }
+        }
+        if (minAmount < 1 || maxAmount < minAmount) {
+            throw new IllegalArgumentException("quantité invalide pour " + material + " : " + amount);
+        }
+
+        ItemStack template = new ItemStack(material);
+        ItemMeta meta = template.getItemMeta();
+        if (meta != null) {
+            if (raw.get("name") != null) {
+                meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', raw.get("name").toString()));
+            }
+            if (raw.get("lore") instanceof List<?> lore) {
+                List<String> lines = new ArrayList<>(lore.size());
+                for (Object line : lore) lines.add(ChatColor.translateAlternateColorCodes('&', String.valueOf(line)));
+                meta.setLore(lines);
+            }
+            if (raw.get("custom-model-data") instanceof Number n && n.intValue() > 0) {
+                meta.setCustomModelData(n.intValue());
+            }
+            template.setItemMeta(meta);
+        }
+        return new LootTable.Entry(template, weight, minAmount, maxAmount);
+    }
+}
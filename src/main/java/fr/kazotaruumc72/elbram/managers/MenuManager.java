@@ -1,10 +1,17 @@
 package fr.kazotaruumc72.elbram.managers;
 
 import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.CatalogSnapshot;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeDefinition;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeRegistry;
+import fr.kazotaruumc72.elbram.catalog.MenuCatalog;
+import fr.kazotaruumc72.elbram.catalog.MenuWatcher;
+import fr.kazotaruumc72.elbram.catalog.Prerequisite;
 import fr.kazotaruumc72.elbram.model.Rarity;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
@@ -12,17 +19,38 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.io.File;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Charge les configurations de menus depuis les fichiers YAML et crée les ItemStacks.
+ *
+ * Les fichiers ne sont lus qu'au chargement du {@link MenuCatalog} (activation,
+ * /elbram reload, modification détectée sous {@code menus/}) ; toutes les autres
+ * méthodes lisent le catalogue en mémoire. Si aucun fichier n'a changé depuis la
+ * dernière compilation, les menus et les fermetures de perte en cascade sont relus
+ * depuis un {@link CatalogSnapshot}, sans parsing YAML ni calcul du graphe.
+ *
+ * Hors activation, un nouveau catalogue est compilé et validé hors du thread
+ * principal ({@link #reloadAsync()}), puis publié sur le thread principal par un
+ * simple remplacement de référence : aucune lecture ne voit un catalogue partiel.
  */
 public class MenuManager {
 
@@ -30,67 +58,273 @@ public class MenuManager {
     public static final String KNOWLEDGE_BOOK_KEY = "knowledge_book";
 
     private final Elbram plugin;
-    private final List<String> registeredMenus = new ArrayList<>();
+    private final File menusDir;
+    private final CatalogSnapshot snapshot;
+    /** Menus découverts au dernier chargement. */
+    private volatile List<String> registeredMenus = List.of();
+    private volatile MenuCatalog catalog = MenuCatalog.EMPTY;
+    /** Éléments fixes du GUI, reconstruits à chaque rechargement de la configuration. */
+    private volatile GuiTemplates guiTemplates;
+    private final AtomicLong versions = new AtomicLong();
+    /** Compilation des catalogues, un seul à la fois et dans l'ordre des demandes. */
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "Elbram-menus");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Lecture des fichiers de menus en parallèle. */
+    private final ForkJoinPool parsers = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private MenuWatcher watcher;
 
     public MenuManager(Elbram plugin) {
         this.plugin = plugin;
-        saveDefaultMenu("menus/connaissances_informations.yml");
-        saveDefaultMenu("menus/connaissances_profil.yml");
-        saveDefaultMenu("menus/informations/tours.yml");
-        saveDefaultMenu("menus/informations/construction.yml");
-        saveDefaultMenu("menus/informations/combat.yml");
-        saveDefaultMenu("menus/informations/exploration.yml");
+        this.menusDir = new File(plugin.getDataFolder(), "menus");
+        this.snapshot = new CatalogSnapshot(new File(plugin.getDataFolder(), "menus.cache"));
+        saveDefaultMenus();
+        reload();
+        startWatcher();
     }
 
-    private void saveDefaultMenu(String path) {
-        File file = new File(plugin.getDataFolder(), path);
-        if (!file.exists()) {
-            plugin.saveResource(path, false);
+    private void startWatcher() {
+        if (!plugin.getConfig().getBoolean("menus.watch", true)) return;
+        try {
+            watcher = new MenuWatcher(menusDir.toPath(), () -> {
+                plugin.getLogger().info("Modification détectée dans menus/, rechargement des menus...");
+                reloadAsync();
+            }, plugin.getLogger());
+            watcher.start();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Surveillance du dossier menus/ indisponible : " + e.getMessage());
         }
-        String menuName = path.substring("menus/".length(), path.length() - ".yml".length());
-        if (!registeredMenus.contains(menuName)) {
-            registeredMenus.add(menuName);
+    }
+
+    /** Arrête la surveillance des fichiers et la compilation en arrière-plan. */
+    public void close() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ignored) {
+                // Arrêt du plugin
+            }
+        }
+        loader.shutdownNow();
+        parsers.shutdownNow();
+    }
+
+    /**
+     * Extrait les menus fournis dans le JAR qui n'existent pas encore dans
+     * {@code plugins/Elbram/menus/}.
+     */
+    private void saveDefaultMenus() {
+        try (JarFile jar = new JarFile(plugin.getPluginFile())) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String path = entry.getName();
+                if (entry.isDirectory() || !path.startsWith("menus/") || !path.endsWith(".yml")) continue;
+                if (!new File(plugin.getDataFolder(), path).exists()) {
+                    plugin.saveResource(path, false);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Impossible d'extraire les menus par défaut : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parcourt récursivement {@code menus/} : chaque fichier .yml est un menu, nommé par
+     * son chemin relatif sans extension (ex. "informations/tours"), en ordre alphabétique.
+     */
+    private List<String> discoverMenus() {
+        Path root = menusDir.toPath();
+        if (!Files.isDirectory(root)) return List.of();
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(path -> Files.isRegularFile(path) && path.getFileName().toString().endsWith(".yml"))
+                    .map(path -> {
+                        String relative = root.relativize(path).toString().replace(File.separatorChar, '/');
+                        return relative.substring(0, relative.length() - ".yml".length());
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossible de parcourir le dossier menus/ : " + e.getMessage());
+            return registeredMenus;
         }
     }
 
     /** Retourne la liste de tous les menus enregistrés (chemin relatif sans préfixe/suffixe). */
     public List<String> getRegisteredMenus() {
-        return Collections.unmodifiableList(registeredMenus);
+        return registeredMenus;
     }
 
     /**
-     * Recherche le nom lisible d'un item de connaissance à partir de son identifiant.
-     * Parcourt tous les menus enregistrés et retourne le nom "appris" de l'item si trouvé,
-     * sinon retourne l'identifiant brut.
+     * Relit et recompile tous les menus enregistrés sur le thread appelant, puis publie
+     * le nouveau catalogue. Utilisé à l'activation, quand le catalogue doit exister
+     * avant la suite du démarrage.
+     * Si la compilation échoue (ex. cycle de prérequis), le catalogue courant est conservé.
+     *
+     * @return {@code true} si le nouveau catalogue a été publié
      */
-    public String getKnowledgeName(String knowledgeId) {
-        for (String menuName : registeredMenus) {
-            MenuConfig config = loadMenu(menuName);
-            if (config == null) continue;
-            for (MenuItem item : config.getItems()) {
-                if (item.isKnowledgeItem() && knowledgeId.equals(item.getKnowledgeId())) {
-                    return ChatColor.stripColor(item.getNameLearned());
+    public boolean reload() {
+        MenuCatalog next = buildCatalog();
+        if (next == null) return false;
+        publish(next);
+        return true;
+    }
+
+    /**
+     * Relit et recompile les menus hors du thread principal, puis publie le nouveau
+     * catalogue sur le thread principal.
+     *
+     * @return résultat complété sur le thread principal : {@code true} si le nouveau
+     *         catalogue a été publié, {@code false} s'il a été rejeté
+     */
+    public CompletableFuture<Boolean> reloadAsync() {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        loader.execute(() -> {
+            MenuCatalog next = buildCatalog();
+            if (!plugin.isEnabled()) return;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (next != null) publish(next);
+                result.complete(next != null);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Compile un nouveau catalogue, ou retourne {@code null} s'il est rejeté.
+     * Sans effet de bord hormis l'instantané {@code menus.cache} : relu si les fichiers
+     * de menus n'ont pas changé, réécrit après une compilation complète depuis le YAML.
+     *
+     * Au premier chargement, un menu ou un item invalide est signalé puis ignoré, pour
+     * que le plugin démarre avec le reste. Lors d'un rechargement, il fait rejeter tout
+     * le catalogue : le catalogue publié est conservé plutôt que de perdre les
+     * Informations, bonus et raretés du menu fautif (ex. fichier lu en cours d'écriture).
+     */
+    private MenuCatalog buildCatalog() {
+        boolean initial = catalog == MenuCatalog.EMPTY;
+        List<String> menuNames = discoverMenus();
+
+        byte[] key = snapshotKey(menuNames);
+        CatalogSnapshot.Contents stored = key != null ? loadSnapshot(key) : null;
+        boolean fromSnapshot = stored != null;
+        Map<String, MenuConfig> menus = fromSnapshot ? stored.menus() : null;
+        boolean complete = true;
+        if (!fromSnapshot) {
+            Interner interner = new Interner();
+            // Un fichier par tâche ; l'ordre des menus reste celui de la découverte
+            List<MenuConfig> configs = parsers.submit(() -> menuNames.parallelStream()
+                    .map(menuName -> loadMenu(menuName, interner))
+                    .toList()).join();
+
+            menus = new LinkedHashMap<>();
+            for (int i = 0; i < menuNames.size(); i++) {
+                if (configs.get(i) != null) {
+                    menus.put(menuNames.get(i), configs.get(i));
+                } else {
+                    complete = false;
                 }
             }
+            if (interner.rejected() > 0) complete = false;
+            if (!complete && !initial) {
+                plugin.getLogger().severe("Menus invalides, le catalogue précédent est conservé");
+                return null;
+            }
+        }
+
+        MenuCatalog next;
+        try {
+            next = new MenuCatalog(versions.incrementAndGet(), menus, plugin.getKnowledgeManager().getKnowledgeIds(),
+                    fromSnapshot ? stored.cascades() : null);
+        } catch (IllegalStateException e) {
+            plugin.getLogger().severe("Menus rejetés, le catalogue précédent est conservé : " + e.getMessage());
+            return null;
+        }
+        // Un menu ou un item ignoré doit être signalé à nouveau au prochain démarrage : pas d'instantané
+        if (!fromSnapshot && complete && key != null) {
+            saveSnapshot(key, next);
+        }
+        return next;
+    }
+
+    // -------------------------------------------------------------------------
+    // Instantané du catalogue compilé
+    // -------------------------------------------------------------------------
+
+    /** Clé de l'instantané pour les menus découverts, ou {@code null} si un fichier est illisible. */
+    private byte[] snapshotKey(List<String> menuNames) {
+        String environment = plugin.getDescription().getVersion() + "/" + plugin.getServer().getBukkitVersion();
+        try {
+            return CatalogSnapshot.key(menusDir, menuNames, environment);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private CatalogSnapshot.Contents loadSnapshot(byte[] key) {
+        try {
+            return snapshot.load(key);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Instantané des menus illisible, recompilation : " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveSnapshot(byte[] key, MenuCatalog compiled) {
+        try {
+            snapshot.save(key, compiled);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Impossible d'écrire l'instantané des menus : " + e.getMessage());
         }
-        return knowledgeId;
+    }
+
+    /**
+     * Publie un catalogue validé et recompile ce qui en dépend (bonus, éléments fixes du GUI).
+     * Thread principal uniquement.
+     */
+    private void publish(MenuCatalog next) {
+        guiTemplates = buildGuiTemplates();
+        catalog = next;
+        registeredMenus = List.copyOf(next.getMenuNames());
+        if (plugin.getBonusManager() != null) {
+            plugin.getBonusManager().init();
+        }
+        plugin.getLogger().info("Catalogue des menus v" + next.getVersion() + " publié ("
+                + next.getMenuNames().size() + " menus, " + next.getKnowledge().size() + " Informations)");
+    }
+
+    /** Retourne le catalogue compilé courant. */
+    public MenuCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Retourne la configuration compilée d'un menu, ou {@code null} si elle n'existe pas.
+     *
+     * @param menuName chemin relatif sans le préfixe "menus/" ni le suffixe ".yml"
+     *                 (ex. : "informations/tours" ou "connaissances_informations")
+     */
+    public MenuConfig getMenu(String menuName) {
+        return catalog.getMenu(menuName);
+    }
+
+    /**
+     * Recherche le nom lisible d'un item de connaissance à partir de son identifiant.
+     * Retourne le nom "appris" de l'item si trouvé, sinon l'identifiant brut.
+     */
+    public String getKnowledgeName(String knowledgeId) {
+        KnowledgeDefinition def = catalog.getKnowledge().get(knowledgeId);
+        return def != null ? def.displayName() : knowledgeId;
     }
 
     /**
      * Retourne la rareté d'une Information à partir de son identifiant.
-     * Parcourt tous les menus enregistrés ; retourne {@link Rarity#COMMON} si introuvable.
+     * Retourne {@link Rarity#COMMON} si introuvable.
      */
     public Rarity getKnowledgeRarity(String knowledgeId) {
-        for (String menuName : registeredMenus) {
-            MenuConfig config = loadMenu(menuName);
-            if (config == null) continue;
-            for (MenuItem item : config.getItems()) {
-                if (item.isKnowledgeItem() && knowledgeId.equals(item.getKnowledgeId())) {
-                    return item.getRarity();
-                }
-            }
-        }
-        return Rarity.COMMON;
+        KnowledgeDefinition def = catalog.getKnowledge().get(knowledgeId);
+        return def != null ? def.rarity() : Rarity.COMMON;
     }
 
     /**
@@ -99,17 +333,7 @@ public class MenuManager {
      * Utilisé pour calculer l'obsolescence en cascade lors d'un transfert.
      */
     public List<String> getDependentKnowledge(String prerequisiteId) {
-        List<String> dependents = new ArrayList<>();
-        for (String menuName : registeredMenus) {
-            MenuConfig config = loadMenu(menuName);
-            if (config == null) continue;
-            for (MenuItem item : config.getItems()) {
-                if (item.isKnowledgeItem() && prerequisiteId.equals(item.getSkillRequired())) {
-                    dependents.add(item.getKnowledgeId());
-                }
-            }
-        }
-        return dependents;
+        return catalog.getKnowledge().getDependents(prerequisiteId);
     }
 
     // -------------------------------------------------------------------------
@@ -117,27 +341,21 @@ public class MenuManager {
     // -------------------------------------------------------------------------
 
     /**
-     * Charge et retourne la configuration d'un menu depuis le dossier du plugin
-     * (ou depuis le JAR si le fichier n'existe pas encore sur le disque).
-     *
-     * @param menuName chemin relatif sans le préfixe "menus/" ni le suffixe ".yml"
-     *                 (ex. : "informations/tours" ou "connaissances_informations")
+     * Charge et compile la configuration d'un menu depuis le dossier du plugin.
+     * Appelé en parallèle pour plusieurs menus ; une erreur ne concerne que ce fichier,
+     * qui est signalé puis ignoré ({@code null}).
      */
-    public MenuConfig loadMenu(String menuName) {
-        String resourcePath = "menus/" + menuName + ".yml";
-        File file = new File(plugin.getDataFolder(), resourcePath);
-
-        YamlConfiguration config;
-        if (file.exists()) {
-            config = YamlConfiguration.loadConfiguration(file);
-        } else {
-            InputStream stream = plugin.getResource(resourcePath);
-            if (stream == null) return null;
-            config = YamlConfiguration.loadConfiguration(
-                    new InputStreamReader(stream, StandardCharsets.UTF_8));
+    private MenuConfig loadMenu(String menuName, Interner interner) {
+        File file = new File(menusDir, menuName + ".yml");
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Menu " + menuName + ".yml ignoré : " + e.getMessage());
+            return null;
         }
 
-        String title = color(config.getString("title", "Menu"));
+        String title = interner.string(color(config.getString("title", "Menu")));
         List<MenuItem> items = new ArrayList<>();
 
         List<?> rawList = config.getList("items");
@@ -146,26 +364,15 @@ public class MenuManager {
                 if (obj instanceof Map<?, ?> raw) {
                     @SuppressWarnings("unchecked")
                     Map<String, Object> map = (Map<String, Object>) raw;
-                    items.addAll(parseMenuItems(map));
+                    MenuItem item = parseMenuItem(map, interner);
+                    if (item != null) items.add(item);
                 }
             }
         }
         return new MenuConfig(title, items);
     }
 
-    private List<MenuItem> parseMenuItems(Map<String, Object> map) {
-        List<Integer> slots = expandSlots(map);
-        List<MenuItem> result = new ArrayList<>();
-        for (int slot : slots) {
-            Map<String, Object> slotMap = new java.util.HashMap<>(map);
-            slotMap.put("slot", slot);
-            MenuItem item = parseMenuItem(slotMap);
-            if (item != null) result.add(item);
-        }
-        return result;
-    }
-
-    private List<Integer> expandSlots(Map<String, Object> map) {
+    private List<Integer> expandSlots(Map<String, Object> map, Interner interner) {
         Object slotsVal = map.get("slots");
         if (slotsVal instanceof List<?> list) {
             List<Integer> result = new ArrayList<>();
@@ -180,17 +387,20 @@ public class MenuManager {
                             int end   = Integer.parseInt(parts[1].trim());
                             if (start > end) {
                                 plugin.getLogger().warning("Plage de slots invalide (start > end) : " + s);
+                                interner.reject();
                             } else {
                                 for (int i = start; i <= end; i++) result.add(i);
                             }
                         } catch (NumberFormatException e) {
                             plugin.getLogger().warning("Plage de slots malformée : " + s);
+                            interner.reject();
                         }
                     } else {
                         try {
                             result.add(Integer.parseInt(s.trim()));
                         } catch (NumberFormatException e) {
                             plugin.getLogger().warning("Valeur de slot invalide : " + s);
+                            interner.reject();
                         }
                     }
                 }
@@ -200,26 +410,43 @@ public class MenuManager {
         return List.of(toInt(map.getOrDefault("slot", 0)));
     }
 
-    private MenuItem parseMenuItem(Map<String, Object> map) {
+    /**
+     * Compile une entrée de menu en un seul item partagé par tous ses slots
+     * ({@code slot: 4} ou {@code slots: [0-8, 12]}).
+     */
+    private MenuItem parseMenuItem(Map<String, Object> map, Interner interner) {
         try {
-            int slot = toInt(map.getOrDefault("slot", 0));
+            long slotMask = 0L;
+            for (int slot : expandSlots(map, interner)) {
+                if (slot < 0 || slot >= MenuConfig.SIZE) {
+                    plugin.getLogger().warning("Slot hors du menu (0-" + (MenuConfig.SIZE - 1) + ") : " + slot);
+                    interner.reject();
+                    continue;
+                }
+                slotMask |= 1L << slot;
+            }
+            if (slotMask == 0L) {
+                interner.reject();
+                return null;
+            }
             String knowledgeId = (String) map.get("knowledge_id");
 
             if (knowledgeId != null) {
                 // --- Bouton de connaissance ---
-                String nameUnlearned = color((String) map.getOrDefault("name_unlearned", "&7Inconnu"));
-                String nameLearned   = color((String) map.getOrDefault("name_learned",   "&aAppris"));
-                List<String> loreUnlearned = colorList(getStringList(map, "lore_unlearned"));
-                List<String> loreLearned   = colorList(getStringList(map, "lore_learned"));
+                String nameUnlearned = interner.string(color((String) map.getOrDefault("name_unlearned", "&7Inconnu")));
+                String nameLearned   = interner.string(color((String) map.getOrDefault("name_learned",   "&aAppris")));
+                List<String> loreUnlearned = interner.lore(colorList(getStringList(map, "lore_unlearned")));
+                List<String> loreLearned   = interner.lore(colorList(getStringList(map, "lore_learned")));
                 Material matUnlearned = parseMaterial((String) map.getOrDefault("material_unlearned", "GRAY_STAINED_GLASS_PANE"));
                 Material matLearned   = parseMaterial((String) map.getOrDefault("material_learned",   "GLOWSTONE"));
                 int cmdUnlearned = toInt(map.getOrDefault("custom_model_data_unlearned", 0));
                 int cmdLearned   = toInt(map.getOrDefault("custom_model_data_learned",   0));
                 String skillRequired = (String) map.get("skill_required");
+                Prerequisite.validate(skillRequired);
                 List<String> bonuses = getStringList(map, "bonuses");
                 Rarity rarity = Rarity.fromString((String) map.get("rarity"));
 
-                return new MenuItem(slot, knowledgeId,
+                return new MenuItem(slotMask, knowledgeId,
                         nameUnlearned, nameLearned,
                         loreUnlearned, loreLearned,
                         matUnlearned, matLearned,
@@ -227,18 +454,20 @@ public class MenuManager {
                         skillRequired, bonuses, rarity);
             } else {
                 // --- Bouton de catégorie / navigation ---
-                String name   = color((String) map.getOrDefault("name",     "&fItem"));
-                List<String> lore = colorList(getStringList(map, "lore"));
+                String name   = interner.string(color((String) map.getOrDefault("name",     "&fItem")));
+                List<String> lore = interner.lore(colorList(getStringList(map, "lore")));
                 Material material = parseMaterial((String) map.getOrDefault("material", "PAPER"));
-                String action  = (String) map.get("action");
+                // Un élément de décoration (type: filler) n'a jamais d'action
+                String action  = "filler".equals(map.get("type")) ? null : (String) map.get("action");
                 String submenu = (String) map.get("submenu");
                 String perm    = (String) map.get("permission");
                 int customModelData = toInt(map.getOrDefault("custom_model_data", 0));
 
-                return new MenuItem(slot, material, name, lore, action, submenu, perm, customModelData);
+                return new MenuItem(slotMask, material, name, lore, action, submenu, perm, customModelData);
             }
         } catch (Exception e) {
             plugin.getLogger().warning("Erreur lors du parsing d'un item de menu : " + e.getMessage());
+            interner.reject();
             return null;
         }
     }
@@ -249,13 +478,29 @@ public class MenuManager {
 
     /** Crée l'item configurable qui occupe le slot 4 (milieu de la ligne du haut). */
     public ItemStack createSpecialItem() {
+        return guiTemplates.specialItem().clone();
+    }
+
+    /**
+     * Éléments fixes du GUI (titre, item du slot 4, vitre de décoration), construits
+     * une fois par rechargement. Les items sont des modèles partagés : ne jamais les
+     * modifier ({@code Inventory.setItem} en fait lui-même une copie).
+     */
+    public GuiTemplates getGuiTemplates() {
+        return guiTemplates;
+    }
+
+    private GuiTemplates buildGuiTemplates() {
         FileConfiguration cfg = plugin.getConfig();
-        ItemStack item = buildItem(
+        String title = color(cfg.getString("gui.title", "&8Connaissances"));
+        ItemStack specialItem = buildItem(
                 cfg.getString("gui.item.material", "BOOK"),
                 cfg.getInt("gui.item.custom-model-data", 0),
                 cfg.getString("gui.item.name", "&6Connaissances"),
                 cfg.getStringList("gui.item.lore"));
-        return item;
+        // Vitre grise sans nom pour les slots de décoration
+        ItemStack pane = buildItem(Material.GRAY_STAINED_GLASS_PANE, " ", null, 0);
+        return new GuiTemplates(title, specialItem, pane);
     }
 
     /**
@@ -283,12 +528,16 @@ public class MenuManager {
     // -------------------------------------------------------------------------
 
     private ItemStack buildItem(String materialName, int customModelData, String rawName, List<String> rawLore) {
-        Material material = parseMaterial(materialName);
+        return buildItem(parseMaterial(materialName), color(rawName), colorList(rawLore), customModelData);
+    }
+
+    /** Construit un item à partir de textes déjà colorés ({@code lore} peut être {@code null}). */
+    private static ItemStack buildItem(Material material, String name, List<String> lore, int customModelData) {
         ItemStack item = new ItemStack(material);
         ItemMeta meta = item.getItemMeta();
         if (meta == null) return item;
-        meta.setDisplayName(color(rawName));
-        meta.setLore(colorList(rawLore));
+        meta.setDisplayName(name);
+        if (lore != null) meta.setLore(lore);
         if (customModelData > 0) {
             meta.setCustomModelData(customModelData);
         }
@@ -327,22 +576,97 @@ public class MenuManager {
     // Classes imbriquées
     // =========================================================================
 
+    /**
+     * Table d'internement des textes d'un chargement : les noms et lores identiques
+     * (décorations, lignes répétées d'un menu à l'autre) partagent une seule instance.
+     * Compte aussi les items (ou slots) écartés, pour ne pas figer un catalogue
+     * incomplet dans l'instantané.
+     */
+    private static final class Interner {
+        private final Map<Object, Object> values = new ConcurrentHashMap<>();
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        /** Signale un item, ou une partie d'item, écarté avec un avertissement. */
+        void reject() {
+            rejected.incrementAndGet();
+        }
+
+        int rejected() {
+            return rejected.get();
+        }
+
+        String string(String value) {
+            return (String) values.computeIfAbsent(value, v -> v);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> lore(List<String> lines) {
+            List<String> interned = new ArrayList<>(lines.size());
+            for (String line : lines) interned.add(string(line));
+            return (List<String>) values.computeIfAbsent(List.copyOf(interned), v -> v);
+        }
+    }
+
+    /**
+     * Éléments fixes du GUI, communs à tous les menus.
+     *
+     * @param title       titre de l'inventaire (coloré)
+     * @param specialItem modèle de l'item du slot 4
+     * @param pane        modèle de la vitre de décoration de la ligne du haut
+     */
+    public record GuiTemplates(String title, ItemStack specialItem, ItemStack pane) {}
+
     public static class MenuConfig {
+        /** Nombre de slots d'un menu (6 lignes). */
+        public static final int SIZE = 54;
+
         private final String title;
         private final List<MenuItem> items;
+        /** slot → item affiché (le dernier déclaré l'emporte, comme au rendu) */
+        private final MenuItem[] bySlot = new MenuItem[SIZE];
 
         public MenuConfig(String title, List<MenuItem> items) {
             this.title = title;
-            this.items = items;
+            this.items = List.copyOf(items);
+            for (MenuItem item : this.items) {
+                long mask = item.getSlotMask();
+                for (int slot = Long.numberOfTrailingZeros(mask); slot < SIZE; slot = Long.numberOfTrailingZeros(mask)) {
+                    bySlot[slot] = item;
+                    mask &= mask - 1;
+                }
+            }
         }
 
         public String getTitle() { return title; }
         public List<MenuItem> getItems() { return items; }
+
+        /** Item affiché dans le slot, ou {@code null} (slot vide ou hors du menu). */
+        public MenuItem getItemAt(int slot) {
+            return slot >= 0 && slot < SIZE ? bySlot[slot] : null;
+        }
     }
 
     public static class MenuItem {
-        private final int slot;
+
+        /** Effet d'un clic sur l'item, résolu une fois à la compilation du menu. */
+        public enum ClickAction {
+            /** Décoration ou action inconnue : le clic est seulement annulé. */
+            NONE,
+            LEARN,
+            OPEN_SUBMENU,
+            CLOSE;
+
+            static ClickAction of(String action) {
+                if ("open_submenu".equals(action)) return OPEN_SUBMENU;
+                if ("close".equals(action)) return CLOSE;
+                return NONE;
+            }
+        }
+
+        /** Slots occupés : bit {@code n} pour le slot {@code n}. */
+        private final long slotMask;
         private final boolean knowledgeItem;
+        private final ClickAction clickAction;
 
         // --- Bouton de catégorie ---
         private final Material material;
@@ -367,11 +691,19 @@ public class MenuManager {
         private final List<String> bonuses;
         private final Rarity rarity;
 
+        // --- Modèles d'ItemStack, construits au premier affichage puis partagés ---
+        private volatile ItemStack categoryTemplate;
+        private volatile ItemStack unlearnedTemplate;
+        private volatile ItemStack learnedTemplate;
+        private volatile ItemStack lockedTemplate;
+        private volatile ItemStack blockedTemplate;
+
         /** Constructeur pour un bouton de catégorie / navigation. */
-        public MenuItem(int slot, Material material, String name, List<String> lore,
+        public MenuItem(long slotMask, Material material, String name, List<String> lore,
                         String action, String submenu, String permission, int customModelData) {
-            this.slot = slot;
+            this.slotMask = slotMask;
             this.knowledgeItem = false;
+            this.clickAction = ClickAction.of(action);
             this.material = material;
             this.name = name;
             this.lore = lore;
@@ -395,14 +727,15 @@ public class MenuManager {
         }
 
         /** Constructeur pour un bouton de connaissance. */
-        public MenuItem(int slot, String knowledgeId,
+        public MenuItem(long slotMask, String knowledgeId,
                         String nameUnlearned, String nameLearned,
                         List<String> loreUnlearned, List<String> loreLearned,
                         Material materialUnlearned, Material materialLearned,
                         int customModelDataUnlearned, int customModelDataLearned,
                         String skillRequired, List<String> bonuses, Rarity rarity) {
-            this.slot = slot;
+            this.slotMask = slotMask;
             this.knowledgeItem = true;
+            this.clickAction = ClickAction.LEARN;
             this.knowledgeId = knowledgeId;
             this.nameUnlearned = nameUnlearned;
             this.nameLearned = nameLearned;
@@ -426,48 +759,100 @@ public class MenuManager {
         }
 
         public ItemStack createCategoryItem() {
-            ItemStack item = new ItemStack(material);
-            ItemMeta meta = item.getItemMeta();
-            if (meta != null) {
-                meta.setDisplayName(name);
-                meta.setLore(lore);
-                if (customModelData > 0) meta.setCustomModelData(customModelData);
-                item.setItemMeta(meta);
-            }
-            return item;
+            return getCategoryTemplate().clone();
         }
 
         public ItemStack createUnlearnedItem() {
-            ItemStack item = new ItemStack(materialUnlearned);
-            ItemMeta meta = item.getItemMeta();
-            if (meta != null) {
-                meta.setDisplayName(nameUnlearned);
-                meta.setLore(loreUnlearned);
-                if (customModelDataUnlearned > 0) meta.setCustomModelData(customModelDataUnlearned);
-                item.setItemMeta(meta);
-            }
-            return item;
+            return getUnlearnedTemplate().clone();
         }
 
         public ItemStack createLearnedItem() {
-            ItemStack item = new ItemStack(materialLearned);
-            ItemMeta meta = item.getItemMeta();
-            if (meta != null) {
-                meta.setDisplayName(nameLearned);
-                meta.setLore(loreLearned);
-                if (customModelDataLearned > 0) meta.setCustomModelData(customModelDataLearned);
-                item.setItemMeta(meta);
+            return getLearnedTemplate().clone();
+        }
+
+        /*
+         * Modèles partagés, à ne jamais modifier : ils peuvent être passés tels quels à
+         * Inventory.setItem, qui en fait une copie. Un item appartient à un seul catalogue,
+         * les modèles sont donc reconstruits à chaque rechargement des menus.
+         */
+
+        public ItemStack getCategoryTemplate() {
+            ItemStack template = categoryTemplate;
+            if (template == null) {
+                categoryTemplate = template = buildItem(material, name, lore, customModelData);
+            }
+            return template;
+        }
+
+        public ItemStack getUnlearnedTemplate() {
+            ItemStack template = unlearnedTemplate;
+            if (template == null) {
+                unlearnedTemplate = template = buildItem(materialUnlearned, nameUnlearned, loreUnlearned, customModelDataUnlearned);
+            }
+            return template;
+        }
+
+        public ItemStack getLearnedTemplate() {
+            ItemStack template = learnedTemplate;
+            if (template == null) {
+                learnedTemplate = template = buildItem(materialLearned, nameLearned, loreLearned, customModelDataLearned);
             }
-            return item;
+            return template;
+        }
+
+        /** Modèle "non apprise" complété du prérequis manquant (Information hors de la frontière). */
+        public ItemStack getLockedTemplate(KnowledgeRegistry registry) {
+            ItemStack template = lockedTemplate;
+            if (template == null) {
+                KnowledgeDefinition def = registry.get(knowledgeId);
+                String hint = def != null && def.hasPrerequisite()
+                        ? "§c✖ Prérequis : §e" + registry.describe(def.requirement())
+                        : "§c✖ Inaccessible pour le moment";
+                lockedTemplate = template = buildItem(materialUnlearned, nameUnlearned,
+                        withHint(loreUnlearned, hint), customModelDataUnlearned);
+            }
+            return template;
+        }
+
+        /** Modèle "non apprise" d'une Information définitivement bloquée pour le joueur. */
+        public ItemStack getBlockedTemplate() {
+            ItemStack template = blockedTemplate;
+            if (template == null) {
+                blockedTemplate = template = buildItem(materialUnlearned, nameUnlearned,
+                        withHint(loreUnlearned, "§4✖ Définitivement inaccessible"), customModelDataUnlearned);
+            }
+            return template;
+        }
+
+        private static List<String> withHint(List<String> lore, String hint) {
+            List<String> lines = new ArrayList<>(lore);
+            lines.add("");
+            lines.add(hint);
+            return lines;
         }
 
-        public int getSlot() { return slot; }
+        /** Premier slot occupé par l'item. */
+        public int getSlot() { return Long.numberOfTrailingZeros(slotMask); }
+        public long getSlotMask() { return slotMask; }
+        public boolean occupies(int slot) { return slot >= 0 && slot < 64 && (slotMask & (1L << slot)) != 0; }
         public boolean isKnowledgeItem() { return knowledgeItem; }
+        public ClickAction getClickAction() { return clickAction; }
+        public Material getMaterial() { return material; }
+        public String getName() { return name; }
+        public List<String> getLore() { return lore; }
         public String getAction() { return action; }
         public String getSubmenu() { return submenu; }
         public String getPermission() { return permission; }
+        public int getCustomModelData() { return customModelData; }
         public String getKnowledgeId() { return knowledgeId; }
+        public String getNameUnlearned() { return nameUnlearned; }
         public String getNameLearned() { return nameLearned; }
+        public List<String> getLoreUnlearned() { return loreUnlearned; }
+        public List<String> getLoreLearned() { return loreLearned; }
+        public Material getMaterialUnlearned() { return materialUnlearned; }
+        public Material getMaterialLearned() { return materialLearned; }
+        public int getCustomModelDataUnlearned() { return customModelDataUnlearned; }
+        public int getCustomModelDataLearned() { return customModelDataLearned; }
         public String getSkillRequired() { return skillRequired; }
         public List<String> getBonuses() { return bonuses; }
         public Rarity getRarity() { return rarity; }
@@ -0,0 +1,49 @@
+package fr.kazotaruumc72.elbram.model;
+
+/**
+ * Bonus accordé par une Information, compilé depuis sa déclaration.
+ *
+ * Syntaxe : {@code identifiant}, {@code identifiant:rang} ou
+ * {@code identifiant:rang:valeur} (ex. "chest_loot:2", "tower_damage:1:0.15").
+ * Le rang vaut 1 par défaut ; la valeur, propre à chaque bonus, vaut le rang par défaut.
+ *
+ * @param type      type de bonus interné
+ * @param tier      rang (au moins 1)
+ * @param magnitude valeur numérique associée au rang
+ */
+public record BonusDefinition(BonusType type, int tier, double magnitude) {
+
+    /**
+     * Compile une déclaration de bonus.
+     *
+     * @throws IllegalArgumentException si la déclaration est mal formée
+     */
+    public static BonusDefinition parse(String declaration) {
+        String[] parts = declaration.trim().split(":", -1);
+        if (parts.length > 3) {
+            throw new IllegalArgumentException("trop de champs dans '" + declaration + "'");
+        }
+        BonusType type = BonusType.of(parts[0]);
+
+        int tier = 1;
+        if (parts.length >= 2) {
+            try {
+                tier = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("rang invalide dans '" + declaration + "'");
+            }
+            if (tier < 1) throw new IllegalArgumentException("rang inférieur à 1 dans '" + declaration + "'");
+        }
+
+        double magnitude = tier;
+        if (parts.length == 3) {
+            try {
+                magnitude = Double.parseDouble(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("valeur invalide dans '" + declaration + "'");
+            }
+            if (!Double.isFinite(magnitude)) throw new IllegalArgumentException("valeur invalide dans '" + declaration + "'");
+        }
+        return new BonusDefinition(type, tier, magnitude);
+    }
+}
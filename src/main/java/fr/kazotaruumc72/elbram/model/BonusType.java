@@ -0,0 +1,82 @@
+package fr.kazotaruumc72.elbram.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Type de bonus interné (ex. {@code chest_loot}).
+ *
+ * Chaque identifiant reçoit à sa première rencontre un indice dense qui ne change
+ * plus pendant la vie du serveur, rechargements compris : un plugin tiers peut
+ * résoudre son type une fois ({@link #of(String)}) puis interroger les bonus
+ * par indice, sans hachage de chaîne à chaque requête.
+ */
+public final class BonusType {
+
+    private static final Pattern VALID_ID = Pattern.compile("[a-z0-9_.-]+");
+    private static final ConcurrentHashMap<String, BonusType> BY_ID = new ConcurrentHashMap<>();
+    private static volatile BonusType[] byIndex = new BonusType[16];
+    private static volatile int count;
+
+    private final int index;
+    private final String id;
+
+    private BonusType(int index, String id) {
+        this.index = index;
+        this.id = id;
+    }
+
+    /**
+     * Retourne le type d'identifiant {@code id}, en l'internant s'il est nouveau.
+     *
+     * @throws IllegalArgumentException si l'identifiant est vide ou contient autre chose
+     *                                  que des minuscules, chiffres, '_', '.' ou '-'
+     */
+    public static BonusType of(String id) {
+        if (id == null) throw new IllegalArgumentException("identifiant de bonus absent");
+        BonusType type = BY_ID.get(id);
+        if (type != null) return type;
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("identifiant de bonus invalide : '" + id + "'");
+        }
+        synchronized (BY_ID) {
+            type = BY_ID.get(id);
+            if (type != null) return type;
+            int next = count;
+            BonusType[] table = byIndex;
+            if (next == table.length) {
+                table = Arrays.copyOf(table, next * 2);
+            }
+            type = new BonusType(next, id);
+            table[next] = type;
+            byIndex = table;
+            count = next + 1;
+            BY_ID.put(id, type);
+            return type;
+        }
+    }
+
+    /** Retourne le type déjà interné d'identifiant {@code id}, ou {@code null}. */
+    public static BonusType find(String id) {
+        return id != null ? BY_ID.get(id) : null;
+    }
+
+    /** Nombre de types internés (les indices valides sont {@code 0 .. count-1}). */
+    public static int count() {
+        return count;
+    }
+
+    public int index() {
+        return index;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
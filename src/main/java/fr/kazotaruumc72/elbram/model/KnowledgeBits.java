@@ -0,0 +1,145 @@
+package fr.kazotaruumc72.elbram.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Ensemble immuable d'Informations, représenté par les bits de leurs indices
+ * internés ({@link fr.kazotaruumc72.elbram.catalog.KnowledgeIds}).
+ *
+ * Quelques mots de 64 bits suffisent pour un joueur ; chaque modification
+ * retourne une nouvelle instance, ce qui permet de partager librement un état
+ * (sauvegarde différée, lecture depuis un autre thread) sans copie défensive.
+ */
+public final class KnowledgeBits {
+
+    public static final KnowledgeBits EMPTY = new KnowledgeBits(new long[0]);
+
+    private final long[] words;
+
+    private KnowledgeBits(long[] words) {
+        this.words = words;
+    }
+
+    /** Construit un ensemble à partir d'un {@link BitSet} (copié). */
+    public static KnowledgeBits of(BitSet bits) {
+        return bits.isEmpty() ? EMPTY : new KnowledgeBits(bits.toLongArray());
+    }
+
+    /** Construit un ensemble à partir de mots bruts (copiés). */
+    public static KnowledgeBits fromWords(long[] words) {
+        return trimmed(words.clone());
+    }
+
+    public boolean get(int index) {
+        int w = index >>> 6;
+        return w < words.length && (words[w] & (1L << index)) != 0;
+    }
+
+    public KnowledgeBits with(int index) {
+        if (get(index)) return this;
+        int w = index >>> 6;
+        long[] copy = Arrays.copyOf(words, Math.max(words.length, w + 1));
+        copy[w] |= 1L << index;
+        return new KnowledgeBits(copy);
+    }
+
+    public KnowledgeBits without(int index) {
+        if (!get(index)) return this;
+        long[] copy = words.clone();
+        copy[index >>> 6] &= ~(1L << index);
+        return trimmed(copy);
+    }
+
+    /** Intersection. */
+    public KnowledgeBits and(KnowledgeBits other) {
+        int n = Math.min(words.length, other.words.length);
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++) result[i] = words[i] & other.words[i];
+        return trimmed(result);
+    }
+
+    /** Union. */
+    public KnowledgeBits or(KnowledgeBits other) {
+        if (other.words.length > words.length) return other.or(this);
+        long[] result = words.clone();
+        for (int i = 0; i < other.words.length; i++) result[i] |= other.words[i];
+        return new KnowledgeBits(result);
+    }
+
+    /** Différence : les bits de cet ensemble absents de {@code other}. */
+    public KnowledgeBits andNot(KnowledgeBits other) {
+        long[] result = words.clone();
+        int n = Math.min(words.length, other.words.length);
+        for (int i = 0; i < n; i++) result[i] &= ~other.words[i];
+        return trimmed(result);
+    }
+
+    public boolean intersects(KnowledgeBits other) {
+        int n = Math.min(words.length, other.words.length);
+        for (int i = 0; i < n; i++) {
+            if ((words[i] & other.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /** Nombre de bits communs avec {@code other}, sans construire l'intersection. */
+    public int andCardinality(KnowledgeBits other) {
+        int n = Math.min(words.length, other.words.length);
+        int count = 0;
+        for (int i = 0; i < n; i++) count += Long.bitCount(words[i] & other.words[i]);
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) count += Long.bitCount(word);
+        return count;
+    }
+
+    /** Indice du premier bit positionné à partir de {@code from}, ou {@code -1}. */
+    public int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) return -1;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length) return -1;
+            word = words[w];
+        }
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            action.accept(i);
+        }
+    }
+
+    /** Copie des mots bruts (bit {@code i} dans le mot {@code i / 64}). */
+    public long[] toWords() {
+        return words.clone();
+    }
+
+    /** Supprime les mots nuls de fin pour garder une représentation canonique. */
+    private static KnowledgeBits trimmed(long[] words) {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0) n--;
+        if (n == 0) return EMPTY;
+        return new KnowledgeBits(n == words.length ? words : Arrays.copyOf(words, n));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof KnowledgeBits other && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
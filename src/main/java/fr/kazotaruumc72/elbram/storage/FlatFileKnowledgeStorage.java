@@ -0,0 +1,222 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Stockage historique : un fichier par joueur dans plugins/Elbram/players/.
+ *
+ * Les fichiers &lt;uuid&gt;.dat suivent le format de {@link PlayerDataCodec} ;
+ * les anciens fichiers &lt;uuid&gt;.yml ou .dat d'un format antérieur sont relus
+ * puis signalés comme à réécrire.
+ *
+ * Un lot de plusieurs joueurs (ex. les deux joueurs d'un /apprendre) est d'abord
+ * écrit dans un journal ({@code journal.dat}) synchronisé une seule fois sur le
+ * disque, puis appliqué aux fichiers joueurs. Un journal encore présent au
+ * démarrage signifie que l'application a été interrompue : il est rejoué en
+ * entier, si bien qu'un lot n'est jamais appliqué à moitié.
+ *
+ * Chaque fichier joueur est synchronisé avant d'être renommé, et le dossier
+ * après tous les renommages : le journal n'est supprimé qu'une fois le lot
+ * durable, ce qui couvre aussi un arrêt brutal du système (coupure de courant)
+ * et pas seulement de la JVM.
+ */
+public class FlatFileKnowledgeStorage implements KnowledgeStorage {
+
+    private static final int JOURNAL_MAGIC = 0x454C424A; // "ELBJ"
+    private static final byte JOURNAL_VERSION = 1;
+
+    private final File playersDir;
+    private final KnowledgeIds ids;
+    private final Logger logger;
+    private final Path journal;
+    private final Path journalTemp;
+
+    public FlatFileKnowledgeStorage(File playersDir, KnowledgeIds ids, Logger logger) throws IOException {
+        this.playersDir = playersDir;
+        this.ids = ids;
+        this.logger = logger;
+        this.journal = playersDir.toPath().resolve("journal.dat");
+        this.journalTemp = playersDir.toPath().resolve("journal.dat.tmp");
+        recover();
+    }
+
+    @Override
+    public StoredPlayer load(UUID playerId) throws IOException {
+        File file = new File(playersDir, playerId + ".dat");
+        if (file.exists()) {
+            try {
+                byte[] content = Files.readAllBytes(file.toPath());
+                // Un fichier d'un ancien format est réécrit au format courant
+                return new StoredPlayer(PlayerDataCodec.decode(content, ids), PlayerDataCodec.isOutdated(content));
+            } catch (IOException e) {
+                File invalid = new File(playersDir, playerId + ".dat.invalid");
+                logger.severe("Données illisibles pour le joueur " + playerId + " (" + e.getMessage()
+                        + "), fichier renommé en " + invalid.getName());
+                file.renameTo(invalid);
+            }
+        }
+
+        File legacy = new File(playersDir, playerId + ".yml");
+        if (!legacy.exists()) {
+            return new StoredPlayer(PlayerData.EMPTY, false);
+        }
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(legacy);
+        KnowledgeBits knowledge = fromIds(config.getStringList("knowledge"));
+        KnowledgeBits blocked   = fromIds(config.getStringList("blocked"));
+        return new StoredPlayer(new PlayerData(knowledge, blocked), true);
+    }
+
+    /**
+     * Écrit chaque joueur dans son fichier, remplacé atomiquement ;
+     * un ancien fichier YAML éventuel est supprimé.
+     * Un lot de plusieurs joueurs passe d'abord par le journal.
+     */
+    @Override
+    public void saveAll(Map<UUID, PlayerData> batch) throws IOException {
+        // Les indices écrits dans les fichiers doivent survivre au dictionnaire après un arrêt brutal
+        ids.sync();
+        Map<UUID, byte[]> encoded = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+            encoded.put(entry.getKey(), PlayerDataCodec.encode(entry.getValue(), ids));
+        }
+        if (encoded.size() > 1) {
+            writeJournal(encoded);
+        }
+        apply(encoded);
+        Files.deleteIfExists(journal);
+    }
+
+    @Override
+    public void close() {
+        // Aucune ressource ouverte entre deux appels
+    }
+
+    /** Remplace les fichiers joueurs ; au retour, le lot entier est sur le disque. */
+    private void apply(Map<UUID, byte[]> encoded) throws IOException {
+        for (Map.Entry<UUID, byte[]> entry : encoded.entrySet()) {
+            UUID playerId = entry.getKey();
+            Path target = playersDir.toPath().resolve(playerId + ".dat");
+            Path temp   = playersDir.toPath().resolve(playerId + ".dat.tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer content = ByteBuffer.wrap(entry.getValue());
+                while (content.hasRemaining()) channel.write(content);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(playersDir.toPath().resolve(playerId + ".yml"));
+        }
+        syncDirectory();
+    }
+
+    /** Rend durables les renommages du dossier players/. */
+    private void syncDirectory() throws IOException {
+        // Windows n'ouvre pas un dossier en lecture ; NTFS y journalise lui-même les renommages
+        if (System.getProperty("os.name", "").startsWith("Windows")) return;
+        try (FileChannel directory = FileChannel.open(playersDir.toPath(), StandardOpenOption.READ)) {
+            directory.force(true);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Journal
+    // -------------------------------------------------------------------------
+
+    /**
+     * <pre>
+     * int     magic "ELBJ"
+     * byte    version du format
+     * int     n, puis n fois : uuid (2 long), int longueur, contenu {@link PlayerDataCodec}
+     * long    CRC32 de tout ce qui précède
+     * </pre>
+     * Écrit à côté puis renommé : le journal n'existe que complet et synchronisé.
+     */
+    private void writeJournal(Map<UUID, byte[]> encoded) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * encoded.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(JOURNAL_MAGIC);
+        out.writeByte(JOURNAL_VERSION);
+        out.writeInt(encoded.size());
+        for (Map.Entry<UUID, byte[]> entry : encoded.entrySet()) {
+            out.writeLong(entry.getKey().getMostSignificantBits());
+            out.writeLong(entry.getKey().getLeastSignificantBits());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+
+        try (FileOutputStream file = new FileOutputStream(journalTemp.toFile())) {
+            bytes.writeTo(file);
+            file.getFD().sync();
+        }
+        Files.move(journalTemp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Rejoue un journal laissé par un arrêt brutal, et supprime un journal incomplet. */
+    private void recover() throws IOException {
+        Files.deleteIfExists(journalTemp);
+        if (!Files.exists(journal)) return;
+
+        byte[] content = Files.readAllBytes(journal);
+        Map<UUID, byte[]> encoded = new LinkedHashMap<>();
+        try {
+            if (content.length < 8) throw new IOException("journal tronqué");
+            CRC32 crc = new CRC32();
+            crc.update(content, 0, content.length - 8);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+            in.skipBytes(content.length - 8);
+            if (in.readLong() != crc.getValue()) throw new IOException("somme de contrôle invalide");
+
+            in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 8));
+            if (in.readInt() != JOURNAL_MAGIC || in.readByte() != JOURNAL_VERSION) throw new IOException("en-tête invalide");
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                PlayerDataCodec.decode(data, ids); // validation avant toute écriture
+                encoded.put(playerId, data);
+            }
+        } catch (IOException e) {
+            logger.severe("Journal de sauvegarde illisible (" + e.getMessage() + "), ignoré");
+            Files.deleteIfExists(journal);
+            return;
+        }
+
+        logger.warning("Sauvegarde interrompue détectée : rejeu du journal (" + encoded.size() + " joueurs)");
+        apply(encoded);
+        Files.deleteIfExists(journal);
+    }
+
+    private KnowledgeBits fromIds(List<String> knowledgeIds) {
+        BitSet bits = new BitSet();
+        for (String id : knowledgeIds) bits.set(ids.intern(id));
+        return KnowledgeBits.of(bits);
+    }
+}
@@ -0,0 +1,42 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Support de persistance des connaissances des joueurs.
+ *
+ * Les implémentations sont appelées hors du thread principal (pré-connexion,
+ * {@link WriteBehindQueue}) et doivent donc être utilisables depuis plusieurs threads.
+ */
+public interface KnowledgeStorage {
+
+    /**
+     * Lit l'état d'un joueur ; un joueur inconnu a un état vide.
+     *
+     * @throws IOException si le support est inaccessible
+     */
+    StoredPlayer load(UUID playerId) throws IOException;
+
+    /**
+     * Écrit un lot de joueurs. Le lot est écrit en entier ou pas du tout
+     * lorsque le support le permet (transaction SQL).
+     *
+     * @throws IOException si l'écriture a échoué ; les joueurs restent alors à écrire
+     */
+    void saveAll(Map<UUID, PlayerData> batch) throws IOException;
+
+    /** Libère les ressources du support (fichiers, connexions). */
+    void close() throws IOException;
+
+    /**
+     * État lu depuis le support.
+     *
+     * @param data   connaissances du joueur
+     * @param legacy {@code true} si l'état provient d'un ancien format et doit être réécrit
+     */
+    record StoredPlayer(PlayerData data, boolean legacy) {}
+}
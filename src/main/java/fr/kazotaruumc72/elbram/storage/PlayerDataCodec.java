@@ -0,0 +1,171 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Format binaire compact des données d'un joueur ({@code players/<uuid>.dat}).
+ *
+ * <pre>
+ * int     magic "ELBK"
+ * byte    version du format (3)
+ * long    génération du dictionnaire d'identifiants ({@link KnowledgeIds})
+ * varint  n, puis n écarts varint : indices appris, croissants
+ * varint  m, puis m écarts varint : indices bloqués, croissants
+ * varint  t, puis t fois : identifiant (UTF), byte état (0 appris, 1 bloqué)
+ * </pre>
+ *
+ * Les Informations sont écrites par leur indice dans le dictionnaire persistant,
+ * pour celles qu'il a déjà synchronisées sur le disque
+ * ({@link KnowledgeIds#durableSize()}). Seules les autres, internées depuis la
+ * dernière synchronisation, passent par la table de texte en fin de fichier :
+ * un fichier joueur ne référence jamais un indice que le dictionnaire pourrait
+ * perdre lors d'un arrêt brutal. Un indice inconnu du dictionnaire (fichier
+ * modifié à la main) est ignoré au lieu de rejeter tout le fichier.
+ *
+ * Les versions 1 (indices seuls) et 2 (table de tous les identifiants) restent
+ * lisibles ; {@link #isOutdated(byte[])} les signale pour qu'elles soient réécrites.
+ */
+public final class PlayerDataCodec {
+
+    private static final int MAGIC = 0x454C424B; // "ELBK"
+    private static final byte FORMAT_VERSION = 3;
+    private static final byte TABLE_VERSION = 2;
+    private static final byte INDEXED_VERSION = 1;
+
+    private static final byte STATE_LEARNED = 0;
+    private static final byte STATE_BLOCKED = 1;
+
+    private PlayerDataCodec() {}
+
+    public static byte[] encode(PlayerData data, KnowledgeIds ids) {
+        // Informations dont l'indice n'est pas encore garanti sur le disque : écrites en texte
+        KnowledgeBits used = data.knowledge().or(data.blocked());
+        BitSet recent = new BitSet();
+        for (int i = used.nextSetBit(ids.durableSize()); i >= 0; i = used.nextSetBit(i + 1)) recent.set(i);
+        KnowledgeBits pending = KnowledgeBits.of(recent);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + 2 * data.knowledge().cardinality());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(ids.generation());
+            writeIndices(out, data.knowledge().andNot(pending));
+            writeIndices(out, data.blocked().andNot(pending));
+            writeVarInt(out, pending.cardinality());
+            for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i + 1)) {
+                out.writeUTF(ids.get(i));
+                out.writeByte(data.blocked().get(i) ? STATE_BLOCKED : STATE_LEARNED);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // impossible sur un flux mémoire
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException si le contenu est tronqué, d'une version inconnue, ou écrit
+     *                     avec un autre dictionnaire d'identifiants
+     */
+    public static PlayerData decode(byte[] content, KnowledgeIds ids) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        if (in.readInt() != MAGIC) throw new IOException("en-tête invalide");
+        byte version = in.readByte();
+        if (version == INDEXED_VERSION) return decodeIndexed(in, ids);
+        if (version == TABLE_VERSION) return decodeTable(in, ids);
+        if (version != FORMAT_VERSION) throw new IOException("version de format inconnue : " + version);
+
+        if (in.readLong() != ids.generation()) throw new IOException("écrit avec un autre dictionnaire d'identifiants");
+        BitSet knowledge = readIndices(in, ids.size());
+        BitSet blocked   = readIndices(in, ids.size());
+        int pending = readVarInt(in);
+        for (int n = 0; n < pending; n++) {
+            int index = ids.intern(in.readUTF());
+            (in.readByte() == STATE_BLOCKED ? blocked : knowledge).set(index);
+        }
+        return new PlayerData(KnowledgeBits.of(knowledge), KnowledgeBits.of(blocked));
+    }
+
+    /** {@code true} si le contenu est dans un format antérieur, à réécrire. */
+    public static boolean isOutdated(byte[] content) {
+        return content.length > 4 && content[4] != FORMAT_VERSION;
+    }
+
+    /** Version 1 : indices du dictionnaire, valides seulement pour la même génération. */
+    private static PlayerData decodeIndexed(DataInputStream in, KnowledgeIds ids) throws IOException {
+        if (in.readLong() != ids.generation()) throw new IOException("écrit avec un autre dictionnaire d'identifiants");
+        readVarInt(in); // taille du dictionnaire à l'écriture : les indices inconnus sont filtrés un à un
+        BitSet knowledge = readIndices(in, ids.size());
+        BitSet blocked   = readIndices(in, ids.size());
+        return new PlayerData(KnowledgeBits.of(knowledge), KnowledgeBits.of(blocked));
+    }
+
+    /** Version 2 : table de tous les identifiants du fichier, puis positions dans cette table. */
+    private static PlayerData decodeTable(DataInputStream in, KnowledgeIds ids) throws IOException {
+        int[] table = new int[readVarInt(in)];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = ids.intern(in.readUTF());
+        }
+        KnowledgeBits knowledge = readPositions(in, table);
+        KnowledgeBits blocked   = readPositions(in, table);
+        return new PlayerData(knowledge, blocked);
+    }
+
+    private static void writeIndices(DataOutputStream out, KnowledgeBits bits) throws IOException {
+        writeVarInt(out, bits.cardinality());
+        int previous = 0;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            writeVarInt(out, i - previous);
+            previous = i;
+        }
+    }
+
+    private static BitSet readIndices(DataInputStream in, int bound) throws IOException {
+        int count = readVarInt(in);
+        BitSet bits = new BitSet();
+        int index = 0;
+        for (int n = 0; n < count; n++) {
+            index += readVarInt(in);
+            if (index < 0) throw new IOException("indice invalide : " + index);
+            if (index < bound) bits.set(index);
+        }
+        return bits;
+    }
+
+    private static KnowledgeBits readPositions(DataInputStream in, int[] table) throws IOException {
+        int count = readVarInt(in);
+        BitSet bits = new BitSet();
+        int position = 0;
+        for (int n = 0; n < count; n++) {
+            position += readVarInt(in);
+            if (position < 0 || position >= table.length) throw new IOException("position hors de la table : " + position);
+            bits.set(table[position]);
+        }
+        return KnowledgeBits.of(bits);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("varint trop long");
+    }
+}
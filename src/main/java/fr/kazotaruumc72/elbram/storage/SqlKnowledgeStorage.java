@@ -0,0 +1,203 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stockage dans une base SQLite embarquée (un seul fichier indexé).
+ *
+ * Table normalisée {@code player_knowledge(player, knowledge, state)} :
+ * une ligne par Information apprise ({@link #STATE_LEARNED}) ou bloquée
+ * ({@link #STATE_BLOCKED}) d'un joueur. Un lot de la file d'écriture différée
+ * est écrit en une seule transaction d'upserts groupés.
+ *
+ * Une Information ne fait qu'avancer (absente → apprise → bloquée, ou absente → bloquée) :
+ * les upserts suffisent, aucune ligne n'a jamais à être supprimée.
+ *
+ * Un joueur absent de la base est cherché dans le stockage précédent (fichiers
+ * de players/) : son état y est relu puis signalé comme à réécrire, si bien que
+ * chaque joueur est importé dans la base à sa première lecture. Les fichiers
+ * d'origine sont laissés en place.
+ *
+ * Le pilote SQLite est fourni par le serveur (Paper l'embarque) ; s'il manque,
+ * l'ouverture échoue aussitôt avec un message explicite. Un petit pool de connexions permet
+ * les lectures concurrentes (pré-connexions simultanées) pendant une écriture,
+ * grâce au journal WAL.
+ */
+public class SqlKnowledgeStorage implements KnowledgeStorage {
+
+    public static final int STATE_LEARNED = 0;
+    public static final int STATE_BLOCKED = 1;
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS player_knowledge ("
+            + " player CHAR(36) NOT NULL,"
+            + " knowledge VARCHAR(255) NOT NULL,"
+            + " state TINYINT NOT NULL,"
+            + " PRIMARY KEY (player, knowledge))";
+    private static final String SELECT_PLAYER =
+            "SELECT knowledge, state FROM player_knowledge WHERE player = ?";
+    private static final String UPSERT =
+            "INSERT INTO player_knowledge (player, knowledge, state) VALUES (?, ?, ?)"
+            + " ON CONFLICT (player, knowledge) DO UPDATE SET state = excluded.state";
+
+    private final KnowledgeIds ids;
+    /** Stockage précédent, consulté pour les joueurs pas encore importés. */
+    private final KnowledgeStorage previous;
+    private final BlockingQueue<Connection> pool;
+    private final List<Connection> connections = new ArrayList<>();
+
+    /**
+     * @param previous stockage dont les joueurs sont importés à leur première lecture
+     */
+    public SqlKnowledgeStorage(File databaseFile, KnowledgeIds ids, int poolSize, KnowledgeStorage previous)
+            throws IOException {
+        this.ids = ids;
+        this.previous = previous;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            close();
+            throw new IOException("Pilote SQLite (org.sqlite.JDBC) introuvable sur ce serveur :"
+                    + " utilisez storage.type: flatfile", e);
+        }
+        try {
+            String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+            for (int i = 0; i < poolSize; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("PRAGMA journal_mode=WAL");
+                    st.execute("PRAGMA synchronous=NORMAL");
+                    st.execute("PRAGMA busy_timeout=5000");
+                }
+                connections.add(connection);
+                pool.add(connection);
+            }
+            try (Statement st = connections.get(0).createStatement()) {
+                st.execute(CREATE_TABLE);
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IOException("Impossible d'ouvrir la base " + databaseFile.getName() + " : " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StoredPlayer load(UUID playerId) throws IOException {
+        PlayerData data = select(playerId);
+        if (data != null) {
+            return new StoredPlayer(data, false);
+        }
+        // Joueur encore absent de la base : son état est importé depuis le stockage précédent
+        PlayerData imported = previous.load(playerId).data();
+        return new StoredPlayer(imported, !imported.equals(PlayerData.EMPTY));
+    }
+
+    /** État d'un joueur dans la base, ou {@code null} s'il n'y a aucune ligne. */
+    private PlayerData select(UUID playerId) throws IOException {
+        Connection connection = acquire();
+        try (PreparedStatement ps = connection.prepareStatement(SELECT_PLAYER)) {
+            ps.setString(1, playerId.toString());
+            BitSet knowledge = new BitSet();
+            BitSet blocked   = new BitSet();
+            boolean found = false;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int index = ids.intern(rs.getString(1));
+                    (rs.getInt(2) == STATE_BLOCKED ? blocked : knowledge).set(index);
+                    found = true;
+                }
+            }
+            return found ? new PlayerData(KnowledgeBits.of(knowledge), KnowledgeBits.of(blocked)) : null;
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    @Override
+    public void saveAll(Map<UUID, PlayerData> batch) throws IOException {
+        if (batch.isEmpty()) return;
+        Connection connection = acquire();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT)) {
+                for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+                    String player = entry.getKey().toString();
+                    addRows(ps, player, entry.getValue().knowledge(), STATE_LEARNED);
+                    addRows(ps, player, entry.getValue().blocked(), STATE_BLOCKED);
+                }
+                ps.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            pool.add(connection);
+        }
+    }
+
+    private void addRows(PreparedStatement ps, String player, KnowledgeBits bits, int state) throws SQLException {
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            ps.setString(1, player);
+            ps.setString(2, ids.get(i));
+            ps.setInt(3, state);
+            ps.addBatch();
+        }
+    }
+
+    private Connection acquire() throws IOException {
+        try {
+            return pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompu en attente d'une connexion", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Connection connection : connections) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // Fermeture au mieux
+            }
+        }
+        connections.clear();
+        pool.clear();
+        try {
+            previous.close();
+        } catch (IOException ignored) {
+            // Fermeture au mieux
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sauvegarde différée (write-behind) des données joueurs.
+ *
+ * Le thread principal se contente de déposer le dernier état immuable d'un joueur
+ * ({@link #markDirty}) ; plusieurs modifications successives d'un même joueur sont
+ * fusionnées en une seule écriture. Une tâche asynchrone vide la file par lots à
+ * intervalle régulier ({@code storage.flush-interval-seconds}), et {@link #close()}
+ * garantit une dernière écriture synchrone à l'arrêt du plugin.
+ *
+ * Les états déposés ensemble ({@link #markDirty(Map)}, ex. les deux joueurs d'un
+ * transfert) sont toujours écrits dans le même lot.
+ */
+public class WriteBehindQueue {
+
+    private final Elbram plugin;
+    private final KnowledgeStorage storage;
+    /** Dernier état non encore écrit de chaque joueur modifié. */
+    private final Map<UUID, PlayerData> pending = new ConcurrentHashMap<>();
+    /** Dépôts en lecture partagée, capture d'un lot en écriture exclusive. */
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private BukkitTask task;
+
+    public WriteBehindQueue(Elbram plugin, KnowledgeStorage storage) {
+        this.plugin = plugin;
+        this.storage = storage;
+    }
+
+    /** Démarre la tâche de vidage asynchrone périodique. */
+    public void start() {
+        long intervalTicks = Math.max(1L, plugin.getConfig().getLong("storage.flush-interval-seconds", 5L)) * 20L;
+        task = plugin.getServer().getScheduler()
+                .runTaskTimerAsynchronously(plugin, this::flush, intervalTicks, intervalTicks);
+    }
+
+    /** Enregistre le nouvel état d'un joueur ; remplace un état en attente plus ancien. */
+    public void markDirty(UUID playerId, PlayerData data) {
+        snapshotLock.readLock().lock();
+        try {
+            pending.put(playerId, data);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /** Enregistre ensemble les nouveaux états de plusieurs joueurs : ils feront partie du même lot. */
+    public void markDirty(Map<UUID, PlayerData> states) {
+        snapshotLock.readLock().lock();
+        try {
+            pending.putAll(states);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retourne l'état en attente d'écriture d'un joueur, ou {@code null}.
+     * Permet de relire un joueur sans voir une version du disque plus ancienne.
+     */
+    public PlayerData getPending(UUID playerId) {
+        return pending.get(playerId);
+    }
+
+    /**
+     * Écrit tous les états en attente en un seul lot ({@link KnowledgeStorage#saveAll}).
+     * Un état n'est retiré de la file qu'une fois écrit, et seulement s'il n'a pas été
+     * remplacé entre-temps. Les vidages sont sérialisés pour qu'un état ancien n'écrase
+     * jamais un plus récent.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        Map<UUID, PlayerData> batch;
+        snapshotLock.writeLock().lock();
+        try {
+            batch = new HashMap<>(pending);
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        try {
+            storage.saveAll(batch);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Impossible de sauvegarder les données de " + batch.size() + " joueur(s) : " + e.getMessage());
+            return;
+        }
+        for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** Arrête la tâche périodique puis écrit de façon synchrone tout ce qui reste. */
+    public void close() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        flush();
+    }
+}
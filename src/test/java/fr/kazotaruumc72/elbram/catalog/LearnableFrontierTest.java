@@ -0,0 +1,96 @@
+package fr.kazotaruumc72.elbram.catalog;
+
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuConfig;
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuItem;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+import fr.kazotaruumc72.elbram.model.Rarity;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LearnableFrontierTest {
+
+    /** Après chaque modification, la frontière avancée est celle d'un recalcul complet. */
+    @Test
+    void advanceMatchesRebuild() {
+        Random random = new Random(7);
+        int count = 60;
+        Map<String, String> requirements = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String requirement = null;
+            if (i > 2) {
+                int x = random.nextInt(i);
+                int y = random.nextInt(i);
+                int z = random.nextInt(i);
+                requirement = switch (random.nextInt(4)) {
+                    case 0 -> "k" + x;
+                    case 1 -> "k" + x + " & (k" + y + " | k" + z + ")";
+                    case 2 -> x == y || y == z || x == z ? "k" + x : "2 of (k" + x + ", k" + y + ", k" + z + ")";
+                    default -> null;
+                };
+            }
+            requirements.put("k" + i, requirement);
+        }
+        KnowledgeIds ids = new KnowledgeIds();
+        KnowledgeRegistry registry = registry(requirements, ids);
+
+        KnowledgeBits knowledge = KnowledgeBits.EMPTY;
+        KnowledgeBits blocked = KnowledgeBits.EMPTY;
+        LearnableFrontier frontier = LearnableFrontier.build(registry, knowledge, blocked);
+        for (int step = 0; step < 5_000; step++) {
+            int index = ids.indexOf("k" + random.nextInt(count));
+            switch (random.nextInt(4)) {
+                case 0, 1 -> knowledge = knowledge.with(index);
+                case 2 -> knowledge = knowledge.without(index);
+                default -> blocked = random.nextBoolean() ? blocked.with(index) : blocked.without(index);
+            }
+            frontier = frontier.advance(knowledge, blocked);
+            assertEquals(LearnableFrontier.build(registry, knowledge, blocked).learnable(), frontier.learnable(),
+                    "étape " + step);
+            assertFalse(frontier.learnable().intersects(knowledge.or(blocked)));
+        }
+    }
+
+    @Test
+    void alternativeRequirementOpensWithEitherBranch() {
+        Map<String, String> requirements = new LinkedHashMap<>();
+        requirements.put("a", null);
+        requirements.put("b", null);
+        requirements.put("c", "a | b");
+        KnowledgeIds ids = new KnowledgeIds();
+        KnowledgeRegistry registry = registry(requirements, ids);
+        int a = ids.indexOf("a");
+        int b = ids.indexOf("b");
+        int c = ids.indexOf("c");
+
+        LearnableFrontier frontier = LearnableFrontier.build(registry, KnowledgeBits.EMPTY, KnowledgeBits.EMPTY);
+        assertFalse(frontier.learnable().get(c));
+
+        frontier = frontier.advance(KnowledgeBits.EMPTY.with(b), KnowledgeBits.EMPTY.with(a));
+        assertTrue(frontier.learnable().get(c));
+        assertFalse(frontier.learnable().get(a));
+    }
+
+    /** Un menu par Information, pour ne jamais partager d'emplacement. */
+    private static KnowledgeRegistry registry(Map<String, String> requirements, KnowledgeIds ids) {
+        Map<String, MenuConfig> menus = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : requirements.entrySet()) {
+            MenuItem item = new MenuItem(1L, entry.getKey(),
+                    entry.getKey(), entry.getKey(),
+                    List.of(), List.of(),
+                    Material.PAPER, Material.BOOK,
+                    0, 0,
+                    entry.getValue(), List.of(), Rarity.COMMON);
+            menus.put(entry.getKey(), new MenuConfig(entry.getKey(), List.of(item)));
+        }
+        return new MenuCatalog(1L, menus, ids).getKnowledge();
+    }
+}
@@ -0,0 +1,313 @@
+package fr.kazotaruumc72.elbram.managers;
+
+import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.catalog.KnowledgeIds;
+import fr.kazotaruumc72.elbram.catalog.MenuCatalog;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.TeachResult;
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuConfig;
+import fr.kazotaruumc72.elbram.managers.MenuManager.MenuItem;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+import fr.kazotaruumc72.elbram.model.Rarity;
+import fr.kazotaruumc72.elbram.storage.KnowledgeStorage;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Apprentissages, transferts et lectures simultanés sur un {@link KnowledgeManager}
+ * branché sur un stockage en mémoire. Tous les joueurs sont connectés (résidents).
+ */
+class KnowledgeManagerConcurrencyTest {
+
+    private static final int PLAYERS = 16;
+    private static final int KNOWLEDGE = 48;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 5_000;
+
+    @TempDir
+    File dataFolder;
+
+    private final Map<UUID, PlayerData> disk = new ConcurrentHashMap<>();
+    private MenuManager menuManager;
+    private KnowledgeManager manager;
+
+    @BeforeEach
+    void setUp() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("transfer.receiver-loss-chance", 0.0);
+
+        Server server = mock(Server.class, withSettings().stubOnly());
+        Player online = mock(Player.class, withSettings().stubOnly());
+        when(server.getPlayer(any(UUID.class))).thenReturn(online);
+        when(server.getScheduler()).thenReturn(mock(BukkitScheduler.class, withSettings().stubOnly()));
+
+        menuManager = mock(MenuManager.class, withSettings().stubOnly());
+        Elbram plugin = mock(Elbram.class, withSettings().stubOnly());
+        when(plugin.getDataFolder()).thenReturn(dataFolder);
+        when(plugin.getConfig()).thenReturn(config);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("KnowledgeManagerConcurrencyTest"));
+        when(plugin.getMenuManager()).thenReturn(menuManager);
+        when(plugin.getBonusManager()).thenReturn(mock(BonusManager.class, withSettings().stubOnly()));
+
+        manager = new KnowledgeManager(plugin, ids -> new MemoryStorage());
+        useCatalog(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    /**
+     * Plusieurs threads apprennent, transmettent et lisent en même temps. Aucune
+     * Information n'est à la fois apprise et bloquée, chaque transfert réussi bloque
+     * exactement une Information chez le donneur et la laisse au receveur, et l'état
+     * écrit sur le support est l'état final en mémoire.
+     */
+    @Test
+    void concurrentLearnTeachAndRead() throws Exception {
+        Map<String, String> requirements = new LinkedHashMap<>();
+        for (int k = 0; k < KNOWLEDGE; k++) requirements.put("k" + k, null);
+        useCatalog(requirements);
+        UUID[] players = players(PLAYERS);
+        Queue<Transfer> learned = new ConcurrentLinkedQueue<>();
+        Queue<Transfer> taught = new ConcurrentLinkedQueue<>();
+
+        runConcurrently(THREADS, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int op = 0; op < OPERATIONS; op++) {
+                UUID player = players[random.nextInt(PLAYERS)];
+                String knowledgeId = "k" + random.nextInt(KNOWLEDGE);
+                switch (random.nextInt(4)) {
+                    case 0 -> {
+                        if (manager.learn(player, knowledgeId)) learned.add(new Transfer(null, player, knowledgeId));
+                    }
+                    case 1 -> {
+                        UUID receiver = players[(indexOf(players, player) + 1 + random.nextInt(PLAYERS - 1)) % PLAYERS];
+                        TeachResult result = manager.teach(player, receiver, knowledgeId);
+                        if (result.isSuccess()) {
+                            taught.add(new Transfer(player, receiver, knowledgeId));
+                            assertTrue(result.getReceiverLosses().isEmpty());
+                            assertEquals(List.of(knowledgeId), result.getGiverCascadeLosses());
+                        }
+                    }
+                    default -> {
+                        PlayerData data = manager.getData(player);
+                        assertFalse(data.knowledge().intersects(data.blocked()), "Information apprise et bloquée");
+                        manager.getLearnable(player);
+                        manager.getAllLearned(player);
+                    }
+                }
+            }
+        });
+
+        KnowledgeIds ids = manager.getKnowledgeIds();
+        int totalBlocked = 0;
+        for (UUID player : players) {
+            PlayerData data = manager.getData(player);
+            assertFalse(data.knowledge().intersects(data.blocked()));
+            totalBlocked += data.blocked().cardinality();
+
+            KnowledgeBits expected = KnowledgeBits.EMPTY;
+            for (int k = 0; k < KNOWLEDGE; k++) expected = expected.with(ids.indexOf("k" + k));
+            assertEquals(expected.andNot(data.knowledge()).andNot(data.blocked()), manager.getLearnable(player));
+        }
+        // Chaque transfert bloque une Information que le donneur possédait : ni doublon, ni oubli
+        assertEquals(taught.size(), totalBlocked);
+        for (Transfer transfer : taught) {
+            assertTrue(manager.isBlocked(transfer.giver(), transfer.knowledgeId()));
+            assertTrue(manager.hasLearned(transfer.receiver(), transfer.knowledgeId())
+                    || manager.isBlocked(transfer.receiver(), transfer.knowledgeId()));
+        }
+        for (Transfer transfer : learned) {
+            assertTrue(manager.hasLearned(transfer.receiver(), transfer.knowledgeId())
+                    || manager.isBlocked(transfer.receiver(), transfer.knowledgeId()));
+        }
+
+        manager.saveAll();
+        for (UUID player : players) {
+            assertEquals(manager.getData(player), disk.getOrDefault(player, PlayerData.EMPTY));
+        }
+    }
+
+    /**
+     * Transferts croisés entre les mêmes joueurs, dans les deux sens à la fois :
+     * les verrous pris dans un ordre fixe excluent l'interblocage.
+     */
+    @Test
+    void opposingTransfersDoNotDeadlock() throws Exception {
+        int pairs = 32;
+        int rounds = 200;
+        UUID[] players = players(pairs * 2);
+
+        runConcurrently(pairs * 2, thread -> {
+            UUID giver = players[thread];
+            UUID receiver = players[thread ^ 1];
+            for (int round = 0; round < rounds; round++) {
+                String knowledgeId = "t" + thread + "-" + round;
+                assertTrue(manager.learn(giver, knowledgeId));
+                assertTrue(manager.teach(giver, receiver, knowledgeId).isSuccess());
+            }
+        });
+
+        for (int thread = 0; thread < players.length; thread++) {
+            PlayerData data = manager.getData(players[thread]);
+            assertEquals(rounds, data.knowledge().cardinality());
+            assertEquals(rounds, data.blocked().cardinality());
+        }
+    }
+
+    /** Seuls les dépendants qui n'ont plus aucun moyen d'être satisfaits suivent la perte. */
+    @Test
+    void teachCascadesOnlyToUnsatisfiableDependents() {
+        Map<String, String> requirements = new LinkedHashMap<>();
+        requirements.put("a", null);
+        requirements.put("b", null);
+        requirements.put("either", "a | b");
+        requirements.put("both", "a & b");
+        useCatalog(requirements);
+        UUID giver = UUID.randomUUID();
+        UUID receiver = UUID.randomUUID();
+        for (String knowledgeId : requirements.keySet()) manager.learn(giver, knowledgeId);
+
+        TeachResult result = manager.teach(giver, receiver, "a");
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("a", "both"), result.getGiverCascadeLosses().stream().sorted().toList());
+        assertTrue(manager.hasLearned(giver, "either"));
+        assertTrue(manager.hasLearned(giver, "b"));
+        assertTrue(manager.isBlocked(giver, "both"));
+        assertTrue(manager.hasLearned(receiver, "a"));
+    }
+
+    /** Une alternative déjà bloquée chez le donneur ne sauve plus le dépendant. */
+    @Test
+    void teachCascadesWhenOtherAlternativeIsBlocked() {
+        Map<String, String> requirements = new LinkedHashMap<>();
+        requirements.put("a", null);
+        requirements.put("b", null);
+        requirements.put("either", "a | b");
+        useCatalog(requirements);
+        UUID giver = UUID.randomUUID();
+        manager.learn(giver, "a");
+        manager.learn(giver, "b");
+        manager.learn(giver, "either");
+
+        assertTrue(manager.teach(giver, UUID.randomUUID(), "b").isSuccess());
+        assertTrue(manager.hasLearned(giver, "either"));
+
+        TeachResult result = manager.teach(giver, UUID.randomUUID(), "a");
+        assertEquals(List.of("a", "either"), result.getGiverCascadeLosses().stream().sorted().toList());
+        assertTrue(manager.isBlocked(giver, "either"));
+    }
+
+    // -------------------------------------------------------------------------
+    // Outils
+    // -------------------------------------------------------------------------
+
+    /** Publie un catalogue d'un menu par Information (prérequis éventuel en valeur). */
+    private void useCatalog(Map<String, String> requirements) {
+        Map<String, MenuConfig> menus = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : requirements.entrySet()) {
+            MenuItem item = new MenuItem(1L, entry.getKey(),
+                    entry.getKey(), entry.getKey(),
+                    List.of(), List.of(),
+                    Material.PAPER, Material.BOOK,
+                    0, 0,
+                    entry.getValue(), List.of(), Rarity.COMMON);
+            menus.put(entry.getKey(), new MenuConfig(entry.getKey(), List.of(item)));
+        }
+        MenuCatalog catalog = new MenuCatalog(1L, menus, manager.getKnowledgeIds());
+        when(menuManager.getCatalog()).thenReturn(catalog);
+    }
+
+    private static UUID[] players(int count) {
+        UUID[] players = new UUID[count];
+        for (int i = 0; i < count; i++) players[i] = UUID.randomUUID();
+        return players;
+    }
+
+    private static int indexOf(UUID[] players, UUID player) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].equals(player)) return i;
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /** Lance {@code threads} tâches en même temps ; un interblocage se traduit par un dépassement de délai. */
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(executor.submit(() -> {
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    /** Apprentissage ({@code giver} nul) ou transfert réussi. */
+    private record Transfer(UUID giver, UUID receiver, String knowledgeId) {}
+
+    /** Stockage en mémoire partagé avec le test. */
+    private final class MemoryStorage implements KnowledgeStorage {
+        @Override
+        public StoredPlayer load(UUID playerId) {
+            return new StoredPlayer(disk.getOrDefault(playerId, PlayerData.EMPTY), false);
+        }
+
+        @Override
+        public void saveAll(Map<UUID, PlayerData> batch) {
+            disk.putAll(batch);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package fr.kazotaruumc72.elbram.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KnowledgeBitsTest {
+
+    /** Chaque opération est comparée à un {@link BitSet} de référence. */
+    @Test
+    void operationsMatchBitSet() {
+        Random random = new Random(42);
+        KnowledgeBits bits = KnowledgeBits.EMPTY;
+        BitSet expected = new BitSet();
+        for (int step = 0; step < 10_000; step++) {
+            int index = random.nextInt(300);
+            if (random.nextBoolean()) {
+                bits = bits.with(index);
+                expected.set(index);
+            } else {
+                bits = bits.without(index);
+                expected.clear(index);
+            }
+
+            KnowledgeBits other = randomBits(random);
+            BitSet otherSet = BitSet.valueOf(other.toWords());
+            assertEquals(KnowledgeBits.of(and(expected, otherSet)), bits.and(other));
+            assertEquals(KnowledgeBits.of(or(expected, otherSet)), bits.or(other));
+            assertEquals(KnowledgeBits.of(andNot(expected, otherSet)), bits.andNot(other));
+            assertEquals(expected.intersects(otherSet), bits.intersects(other));
+            assertEquals(and(expected, otherSet).cardinality(), bits.andCardinality(other));
+        }
+        assertEquals(KnowledgeBits.of(expected), bits);
+        assertEquals(expected.cardinality(), bits.cardinality());
+        assertEquals(expected.isEmpty(), bits.isEmpty());
+    }
+
+    /** Les ensembles égaux ont la même représentation, quelle que soit leur histoire. */
+    @Test
+    void removingHighBitsRestoresEquality() {
+        KnowledgeBits bits = KnowledgeBits.EMPTY.with(3).with(200).without(200);
+        assertEquals(KnowledgeBits.EMPTY.with(3), bits);
+        assertEquals(KnowledgeBits.EMPTY.with(3).hashCode(), bits.hashCode());
+        assertTrue(KnowledgeBits.EMPTY.with(70).without(70).isEmpty());
+    }
+
+    /**
+     * Remplacements copy-on-write concurrents : aucune mise à jour n'est perdue et
+     * aucun lecteur n'observe un état partiel.
+     */
+    @Test
+    void copyOnWriteUpdatesFromManyThreads() throws Exception {
+        int threads = 8;
+        int perThread = 256;
+        AtomicReference<KnowledgeBits> shared = new AtomicReference<>(KnowledgeBits.EMPTY);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int index = offset + i;
+                    shared.updateAndGet(bits -> bits.with(index));
+                    // Les bits de ce thread sont publiés dans l'ordre : la lecture voit un préfixe complet
+                    KnowledgeBits seen = shared.get();
+                    for (int j = offset; j <= index; j++) {
+                        assertTrue(seen.get(j));
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+        for (Future<?> task : tasks) {
+            task.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(threads * perThread, shared.get().cardinality());
+    }
+
+    private static KnowledgeBits randomBits(Random random) {
+        BitSet bits = new BitSet();
+        int count = random.nextInt(20);
+        for (int i = 0; i < count; i++) bits.set(random.nextInt(300));
+        return KnowledgeBits.of(bits);
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package fr.kazotaruumc72.elbram.storage;
+
+import fr.kazotaruumc72.elbram.Elbram;
+import fr.kazotaruumc72.elbram.managers.KnowledgeManager.PlayerData;
+import fr.kazotaruumc72.elbram.model.KnowledgeBits;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindQueueTest {
+
+    /**
+     * Des paires de joueurs déposées ensemble pendant des vidages concurrents :
+     * chaque lot contient les deux joueurs d'une paire à la même version, les versions
+     * écrites ne reculent jamais et la dernière version de chacun finit sur le support.
+     */
+    @Test
+    void groupedStatesAreNeverSplitAcrossBatches() throws Exception {
+        RecordingStorage storage = new RecordingStorage();
+        WriteBehindQueue queue = new WriteBehindQueue(plugin(), storage);
+        int pairs = 8;
+        int versions = 2_000;
+        UUID[][] players = new UUID[pairs][];
+        for (int p = 0; p < pairs; p++) {
+            players[p] = new UUID[] {UUID.randomUUID(), UUID.randomUUID()};
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(pairs + 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (UUID[] pair : players) {
+            writers.add(executor.submit(() -> {
+                for (int v = 1; v <= versions; v++) {
+                    queue.markDirty(Map.of(pair[0], version(v), pair[1], version(v)));
+                }
+            }));
+        }
+        Future<?> flusher = executor.submit(() -> {
+            while (writing.get()) queue.flush();
+        });
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        flusher.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        queue.flush();
+
+        Map<UUID, Long> written = new HashMap<>();
+        for (Map<UUID, PlayerData> batch : storage.batches) {
+            for (UUID[] pair : players) {
+                assertEquals(batch.get(pair[0]), batch.get(pair[1]), "paire scindée entre deux lots");
+            }
+            for (Map.Entry<UUID, PlayerData> entry : batch.entrySet()) {
+                long v = entry.getValue().knowledge().toWords()[0];
+                Long previous = written.put(entry.getKey(), v);
+                assertTrue(previous == null || previous < v, "version plus ancienne réécrite");
+            }
+        }
+        for (UUID[] pair : players) {
+            for (UUID playerId : pair) {
+                assertEquals(version(versions), storage.saved.get(playerId));
+                assertNull(queue.getPending(playerId));
+            }
+        }
+    }
+
+    /** Un lot en échec reste en attente et part au vidage suivant. */
+    @Test
+    void failedBatchStaysPending() {
+        RecordingStorage storage = new RecordingStorage();
+        WriteBehindQueue queue = new WriteBehindQueue(plugin(), storage);
+        UUID playerId = UUID.randomUUID();
+        queue.markDirty(playerId, version(1));
+
+        storage.failing = true;
+        queue.flush();
+        assertNotNull(queue.getPending(playerId));
+        assertTrue(storage.saved.isEmpty());
+
+        storage.failing = false;
+        queue.flush();
+        assertNull(queue.getPending(playerId));
+        assertEquals(version(1), storage.saved.get(playerId));
+    }
+
+    private static Elbram plugin() {
+        Elbram plugin = mock(Elbram.class);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("WriteBehindQueueTest"));
+        return plugin;
+    }
+
+    /** État distinct pour chaque version, comparé par valeur comme dans la file. */
+    private static PlayerData version(int v) {
+        return new PlayerData(KnowledgeBits.fromWords(new long[] {v}), KnowledgeBits.EMPTY);
+    }
+
+    /** Support en mémoire qui garde chaque lot écrit. */
+    private static final class RecordingStorage implements KnowledgeStorage {
+        final List<Map<UUID, PlayerData>> batches = new ArrayList<>();
+        final Map<UUID, PlayerData> saved = new ConcurrentHashMap<>();
+        volatile boolean failing;
+
+        @Override
+        public StoredPlayer load(UUID playerId) {
+            PlayerData data = saved.get(playerId);
+            return new StoredPlayer(data != null ? data : PlayerData.EMPTY, false);
+        }
+
+        @Override
+        public synchronized void saveAll(Map<UUID, PlayerData> batch) throws IOException {
+            if (failing) throw new IOException("support indisponible");
+            batches.add(Map.copyOf(batch));
+            saved.putAll(batch);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}